@@ -0,0 +1,101 @@
+-- Banc d'essai des requêtes de plage sur les activités (MySQL 8.0.18+ pour EXPLAIN ANALYZE).
+-- Table synthétique bench_activites: 500 utilisateurs x 4000 activités (2 000 000 lignes),
+-- une activité toutes les 6 h sur environ 3 ans, 1 activité sur 50 longue de 3 jours.
+-- Compare, pour une semaine d'un utilisateur, les lignes examinées (Handler_read_*, EXPLAIN ANALYZE):
+--   1. findAllByUser (ancien GET /planning et ancienne validation)
+--   2. ancienne plage « contenue » sur les index séparés
+--   3. plage « intersectante » sur l'index composite (utilisateur_id, date_debut, date_fin)
+--   4. la même, avec la borne basse date_debut >= debut - durée maximale (requête de l'application)
+-- Attendu sur ces données (utilisateur 250, 4000 activités, 28 dans la semaine):
+--   3. ~2100 entrées d'index lues (toutes celles qui commencent avant @fin: croît avec l'historique)
+--   4. ~40 entrées (celles qui commencent dans les 72 h + 1 s qui précèdent @debut, puis la semaine)
+-- Usage: mysql -u root -p planning_db < database/benchmark-plages.sql
+USE planning_db;
+
+DROP TABLE IF EXISTS bench_activites;
+CREATE TABLE bench_activites (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    titre VARCHAR(200) NOT NULL,
+    description TEXT,
+    date_debut DATETIME NOT NULL,
+    date_fin DATETIME NOT NULL,
+    priorite ENUM('BASSE', 'NORMALE', 'HAUTE', 'URGENTE') DEFAULT 'NORMALE',
+    statut ENUM('PLANIFIE', 'EN_COURS', 'TERMINE', 'ANNULE') DEFAULT 'PLANIFIE',
+    categorie_id INT,
+    utilisateur_id INT NOT NULL
+) ENGINE=InnoDB;
+
+SET SESSION cte_max_recursion_depth = 5000;
+INSERT INTO bench_activites (titre, description, date_debut, date_fin, utilisateur_id)
+WITH RECURSIVE
+    n AS (SELECT 0 AS i UNION ALL SELECT i + 1 FROM n WHERE i < 3999),
+    u AS (SELECT 1 AS id UNION ALL SELECT id + 1 FROM u WHERE id < 500)
+SELECT CONCAT('Activité ', n.i),
+       REPEAT('description ', 20),
+       TIMESTAMP('2023-01-02') + INTERVAL (n.i * 6 + u.id % 6) HOUR,
+       TIMESTAMP('2023-01-02') + INTERVAL (n.i * 6 + u.id % 6) HOUR
+           + INTERVAL IF(n.i % 50 = 0, 72 * 60, 60 + (n.i % 3) * 60) MINUTE,
+       u.id
+FROM u CROSS JOIN n;
+
+-- Index d'avant: séparés
+CREATE INDEX idx_bench_dates ON bench_activites(date_debut, date_fin);
+CREATE INDEX idx_bench_utilisateur ON bench_activites(utilisateur_id);
+ANALYZE TABLE bench_activites;
+
+SET @u = 250;
+SET @debut = TIMESTAMP('2024-06-03');
+SET @fin = TIMESTAMP('2024-06-10');
+
+-- 1. Tout l'historique de l'utilisateur
+FLUSH STATUS;
+SELECT COUNT(*) AS lignes_transferees, SUM(LENGTH(description)) AS octets_description
+FROM (SELECT * FROM bench_activites WHERE utilisateur_id = @u ORDER BY date_debut) t;
+SHOW SESSION STATUS LIKE 'Handler_read%';
+
+-- 2. Ancienne plage « contenue » (manque les activités à cheval sur les bornes)
+FLUSH STATUS;
+SELECT COUNT(*) AS lignes_transferees
+FROM (SELECT * FROM bench_activites
+      WHERE utilisateur_id = @u AND date_debut >= @debut AND date_fin <= @fin ORDER BY date_debut) t;
+SHOW SESSION STATUS LIKE 'Handler_read%';
+EXPLAIN ANALYZE SELECT * FROM bench_activites
+WHERE utilisateur_id = @u AND date_debut >= @debut AND date_fin <= @fin ORDER BY date_debut;
+
+-- Index d'après: composite (couvrant pour les ids), le simple index utilisateur devient inutile
+CREATE INDEX idx_bench_utilisateur_periode ON bench_activites(utilisateur_id, date_debut, date_fin);
+DROP INDEX idx_bench_utilisateur ON bench_activites;
+ANALYZE TABLE bench_activites;
+
+-- 3. Plage « intersectante » sans borne basse: date_fin > @debut n'est qu'un filtre
+FLUSH STATUS;
+SELECT COUNT(*) AS lignes_transferees
+FROM (SELECT a.* FROM bench_activites a
+      JOIN (SELECT id FROM bench_activites
+            WHERE utilisateur_id = @u AND date_debut < @fin AND date_fin > @debut) plage ON plage.id = a.id
+      ORDER BY a.date_debut) t;
+SHOW SESSION STATUS LIKE 'Handler_read%';
+EXPLAIN ANALYZE SELECT a.* FROM bench_activites a
+JOIN (SELECT id FROM bench_activites
+      WHERE utilisateur_id = @u AND date_debut < @fin AND date_fin > @debut) plage ON plage.id = a.id
+ORDER BY a.date_debut;
+
+-- 4. Avec la borne basse cherchable (requête en base de ActiviteDAOImpl.findByUserAndDateRange)
+SET @duree_max = (SELECT COALESCE(MAX(TIMESTAMPDIFF(SECOND, date_debut, date_fin)), 0)
+                  FROM bench_activites WHERE utilisateur_id = @u);
+SET @plancher = @debut - INTERVAL (@duree_max + 1) SECOND;
+FLUSH STATUS;
+SELECT COUNT(*) AS lignes_transferees
+FROM (SELECT a.* FROM bench_activites a
+      JOIN (SELECT id FROM bench_activites
+            WHERE utilisateur_id = @u AND date_debut < @fin AND date_fin > @debut AND date_debut >= @plancher) plage
+        ON plage.id = a.id
+      ORDER BY a.date_debut) t;
+SHOW SESSION STATUS LIKE 'Handler_read%';
+EXPLAIN ANALYZE SELECT a.* FROM bench_activites a
+JOIN (SELECT id FROM bench_activites
+      WHERE utilisateur_id = @u AND date_debut < @fin AND date_fin > @debut AND date_debut >= @plancher) plage
+  ON plage.id = a.id
+ORDER BY a.date_debut;
+
+DROP TABLE bench_activites;
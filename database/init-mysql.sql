@@ -93,6 +93,12 @@ INSERT INTO activites (titre, description, date_debut, date_fin, priorite, statu
 ('Séance sport', 'Musculation', '2025-11-20 18:00:00', '2025-11-20 19:30:00', 'BASSE', 'PLANIFIE', 3, 2);
 
 -- Index pour optimisation
-CREATE INDEX idx_activites_dates ON activites(date_debut, date_fin);
-CREATE INDEX idx_activites_utilisateur ON activites(utilisateur_id);
+-- Utilisateurs ayant des activités dans une période: index couvrant, sans lecture des lignes
+CREATE INDEX idx_activites_dates ON activites(date_debut, date_fin, utilisateur_id);
 CREATE INDEX idx_activites_statut ON activites(statut);
+-- Chevauchements d'une plage pour un utilisateur (date_debut < fin AND date_fin > debut).
+-- Seul date_debut est cherchable: la requête le borne aussi par le bas (date_debut >= debut -
+-- durée maximale des activités de l'utilisateur), sinon tout l'historique antérieur serait parcouru.
+-- Couvrant pour la recherche des ids (InnoDB ajoute la clé primaire à chaque index); sert
+-- aussi les requêtes et la clé étrangère sur utilisateur_id seul
+CREATE INDEX idx_activites_utilisateur_periode ON activites(utilisateur_id, date_debut, date_fin);
@@ -0,0 +1,13 @@
+-- Index des plages d'activités, pour une base créée avant leur ajout à init-mysql.sql.
+-- À exécuter une seule fois.
+USE planning_db;
+
+-- Chevauchements d'une plage pour un utilisateur (date_debut < fin AND date_fin > debut)
+CREATE INDEX idx_activites_utilisateur_periode ON activites(utilisateur_id, date_debut, date_fin);
+
+-- Préfixe du précédent: devenu inutile
+DROP INDEX idx_activites_utilisateur ON activites;
+
+-- Utilisateurs ayant des activités dans une période: version couvrante
+DROP INDEX idx_activites_dates ON activites;
+CREATE INDEX idx_activites_dates ON activites(date_debut, date_fin, utilisateur_id);
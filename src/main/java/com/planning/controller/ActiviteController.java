@@ -3,7 +3,9 @@ package com.planning.controller;
 import com.planning.dao.impl.ActiviteDAOImpl;
 import com.planning.model.Activite;
 import com.planning.service.ConflitService;
+import com.planning.service.BilanApplication;
 import com.planning.service.OptimisationService;
+import com.planning.service.OptionsOptimisation;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -18,6 +20,8 @@ import java.util.List;
 public class ActiviteController extends HttpServlet {
     private final ConflitService conflitService = new ConflitService();
     private final OptimisationService optimisationService = new OptimisationService();
+    /** Budget de l'optimisation déclenchée par create/update: la réponse reste interactive */
+    private static final int BUDGET_INTERACTIF_MS = 300;
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         resp.setContentType("application/json;charset=UTF-8");
@@ -130,33 +134,35 @@ public class ActiviteController extends HttpServlet {
         // Charger les activités existantes dans la fenêtre
         java.util.List<Activite> existantes = dao.findByUserAndDateRange(nouvelle.getUtilisateurId(), fenetreDebut, fenetreFin);
 
-        // En cas de mise à jour, retirer l'ancienne version de la liste
-        if (nouvelle.getId() > 0) {
-            existantes.removeIf(act -> act.getId() == nouvelle.getId());
-        }
+        // En cas de mise à jour, retirer l'ancienne version de la liste; les activités à cheval
+        // sur les bornes de la fenêtre, ou sans dates, ne sont pas déplacées (elles restent fixes)
+        existantes.removeIf(act -> act.getId() == nouvelle.getId()
+            || act.getDebut() == null || act.getFin() == null
+            || act.getDebut().isBefore(fenetreDebut) || act.getFin().isAfter(fenetreFin));
 
         // Ajouter la nouvelle/activite à replanifier
         existantes.add(nouvelle);
 
-        // Générer un planning optimisé
+        // Générer un planning optimisé (anytime: meilleure solution trouvée dans le budget)
+        OptionsOptimisation options = new OptionsOptimisation();
+        options.setBudgetMillis(BUDGET_INTERACTIF_MS);
         java.util.List<Activite> optimises = optimisationService.genererPlanningOptimise(
                 existantes,
                 nouvelle.getUtilisateurId(),
                 fenetreDebut,
-                fenetreFin
+                fenetreFin,
+                options
         );
 
-        // Persister le nouveau planning (update si id>0, save sinon)
-        for (Activite act : optimises) {
-            if (act.getId() > 0) {
-                dao.update(act);
-            } else {
-                dao.save(act);
-            }
-        }
+        // Persister le nouveau planning: seules les activités déplacées ou nouvelles, en une transaction
+        BilanApplication bilan = optimisationService.appliquerPlanning(optimises);
 
         // Réponse JSON avec le planning optimisé
-        StringBuilder json = new StringBuilder("{\"status\":\"ok\",\"optimised\":true,\"activites\":[");
+        StringBuilder json = new StringBuilder("{\"status\":\"ok\",\"optimised\":true");
+        OptimisationController.appendApplication(json, bilan);
+        OptimisationController.appendExecution(json, options.getSuivi());
+        OptimisationController.appendBudget(json, options.getSuivi().getBudget());
+        json.append(",\"activites\":[");
         for (int i = 0; i < optimises.size(); i++) {
             Activite a = optimises.get(i);
             if (i > 0) json.append(',');
@@ -1,8 +1,16 @@
 package com.planning.controller;
 
 import com.planning.model.Activite;
+import com.planning.service.BilanApplication;
+import com.planning.service.BudgetOptimisation;
+import com.planning.service.GestionnaireJobsOptimisation;
+import com.planning.service.JobOptimisation;
+import com.planning.service.MetriquesOptimisation;
+import com.planning.service.OptimisationParLots;
 import com.planning.service.OptimisationService;
-import com.planning.dao.impl.ActiviteDAOImpl;
+import com.planning.service.OptionsOptimisation;
+import com.planning.service.RapportLot;
+import com.planning.service.SuiviOptimisation;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -11,13 +19,52 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
-@WebServlet(name = "OptimisationController", urlPatterns = {"/optimisation/generer", "/optimisation/appliquer"})
+@WebServlet(name = "OptimisationController", urlPatterns = {
+        "/optimisation/generer", "/optimisation/appliquer",
+        "/optimisation/jobs", "/optimisation/jobs/statut", "/optimisation/jobs/annuler",
+        "/optimisation/metriques", "/optimisation/lot", "/optimisation/lot/rapport"})
 public class OptimisationController extends HttpServlet {
     private final OptimisationService optimisationService = new OptimisationService();
-    private final ActiviteDAOImpl activiteDAO = new ActiviteDAOImpl();
+    private final GestionnaireJobsOptimisation jobs = GestionnaireJobsOptimisation.getInstance();
+    private static final int MAX_CHAINES = 64;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json;charset=UTF-8");
+        if (req.getServletPath().endsWith("/metriques")) {
+            resp.getWriter().write(metriquesJson(MetriquesOptimisation.getInstance()));
+            return;
+        }
+        if (req.getServletPath().endsWith("/lot/rapport")) {
+            RapportLot rapport = OptimisationParLots.getInstance().getDernierRapport();
+            if (rapport == null) {
+                resp.setStatus(404);
+                resp.getWriter().write("{\"status\":\"error\",\"error\":\"Aucune replanification par lots\"}");
+                return;
+            }
+            resp.getWriter().write(rapportJson(rapport));
+            return;
+        }
+        if (!req.getServletPath().endsWith("/jobs/statut")) {
+            resp.setStatus(405);
+            resp.getWriter().write("{\"status\":\"error\",\"error\":\"Méthode non supportée\"}");
+            return;
+        }
+        JobOptimisation job = jobs.get(req.getParameter("jobId"));
+        if (job == null) {
+            resp.setStatus(404);
+            resp.getWriter().write("{\"status\":\"error\",\"error\":\"Job inconnu\"}");
+            return;
+        }
+        resp.getWriter().write(jobJson(job, "true".equalsIgnoreCase(req.getParameter("stats"))));
+    }
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
@@ -25,6 +72,15 @@ public class OptimisationController extends HttpServlet {
         resp.setContentType("application/json;charset=UTF-8");
 
         String servletPath = req.getServletPath();
+        if (servletPath.endsWith("/jobs/annuler")) {
+            if (!jobs.annuler(req.getParameter("jobId"))) {
+                resp.setStatus(404);
+                resp.getWriter().write("{\"status\":\"error\",\"error\":\"Job inconnu\"}");
+                return;
+            }
+            resp.getWriter().write("{\"status\":\"ok\",\"jobId\":\"" + escape(req.getParameter("jobId")) + "\"}");
+            return;
+        }
         int userId = parseInt(req.getParameter("userId"), 2);
 
         String debutStr = req.getParameter("dateDebut");
@@ -46,23 +102,61 @@ public class OptimisationController extends HttpServlet {
             return;
         }
 
+        // Replanification par lots, en arrière-plan: utilisateurs=1,2,3 (défaut: tous ceux qui ont des
+        // activités dans la fenêtre); avancement et bilan sur GET /optimisation/lot/rapport
+        if (servletPath.endsWith("/lot")) {
+            List<Integer> utilisateurs = null;
+            String liste = req.getParameter("utilisateurs");
+            if (liste != null && !liste.trim().isEmpty()) {
+                utilisateurs = new ArrayList<>();
+                for (String id : liste.split(",")) {
+                    int u = parseInt(id.trim(), 0);
+                    if (u > 0) utilisateurs.add(u);
+                }
+            }
+            long budgetMs = Math.max(1, parseInt(req.getParameter("budgetMs"), 2000));
+            int threads = Math.max(0, Math.min(parseInt(req.getParameter("parallelisme"), 0), Runtime.getRuntime().availableProcessors()));
+            try {
+                RapportLot rapport = OptimisationParLots.getInstance().lancer(utilisateurs, dateDebut, dateFin, budgetMs,
+                    "true".equalsIgnoreCase(req.getParameter("appliquer")), threads);
+                resp.setStatus(202);
+                resp.getWriter().write(rapportJson(rapport));
+            } catch (IllegalStateException e) {
+                resp.setStatus(409);
+                resp.getWriter().write("{\"status\":\"error\",\"error\":\"" + escape(e.getMessage()) + "\"}");
+            }
+            return;
+        }
+
         // Construire la liste des activités à optimiser (optionnel via JSON, sinon modèle par défaut)
         List<Activite> aOptimiser = buildInputActivities(req, userId, dateDebut);
 
+        // Options d'exécution (chaînes parallèles)
+        OptionsOptimisation options = buildOptions(req);
+
+        // Mode asynchrone: le job s'exécute sur un pool borné, la réponse est immédiate
+        if (servletPath.endsWith("/jobs")) {
+            boolean appliquerJob = "true".equalsIgnoreCase(req.getParameter("appliquer"));
+            try {
+                JobOptimisation job = jobs.soumettre(aOptimiser, userId, dateDebut, dateFin, options, appliquerJob);
+                resp.setStatus(202);
+                resp.getWriter().write("{\"status\":\"ok\",\"jobId\":\"" + job.getId() + "\"}");
+            } catch (RejectedExecutionException e) {
+                resp.setStatus(503);
+                resp.getWriter().write("{\"status\":\"error\",\"error\":\"File d'optimisation pleine, réessayez plus tard\"}");
+            }
+            return;
+        }
+
         // Générer le planning optimisé
-        List<Activite> resultat = optimisationService.genererPlanningOptimise(aOptimiser, userId, dateDebut, dateFin);
+        List<Activite> resultat = optimisationService.genererPlanningOptimise(aOptimiser, userId, dateDebut, dateFin, options);
 
         boolean appliquer = servletPath.endsWith("/appliquer");
+        BilanApplication bilan = null;
         if (appliquer) {
             try {
-                for (Activite act : resultat) {
-                    // Persister: update si id>0, sinon création
-                    if (act.getId() > 0) {
-                        activiteDAO.update(act);
-                    } else {
-                        activiteDAO.save(act);
-                    }
-                }
+                // Persister la différence avec l'état stocké, en une seule transaction
+                bilan = optimisationService.appliquerPlanning(resultat);
             } catch (Exception e) {
                 resp.setStatus(500);
                 resp.getWriter().write("{\"status\":\"error\",\"error\":\"" + escape(e.getMessage()) + "\"}");
@@ -73,10 +167,223 @@ public class OptimisationController extends HttpServlet {
         // Réponse JSON
         StringBuilder json = new StringBuilder("{");
         json.append("\"status\":\"ok\"");
-        if (appliquer) json.append(",\"applied\":true");
-        json.append(",\"activites\":[");
-        for (int i = 0; i < resultat.size(); i++) {
-            Activite a = resultat.get(i);
+        if (appliquer) {
+            json.append(",\"applied\":true");
+            appendApplication(json, bilan);
+        }
+        appendExecution(json, options.getSuivi());
+        appendBudget(json, options.getSuivi().getBudget());
+        if ("true".equalsIgnoreCase(req.getParameter("stats"))) appendStats(json, options.getSuivi());
+        json.append(",\"activites\":");
+        appendActivites(json, resultat);
+        json.append('}');
+        resp.getWriter().write(json.toString());
+    }
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        // Replanification nocturne de la semaine suivante: -Dplanning.optimisation.nuit=HH:mm
+        String heure = System.getProperty("planning.optimisation.nuit");
+        if (heure != null && !heure.isEmpty()) {
+            OptimisationParLots.getInstance().planifierChaqueNuit(LocalTime.parse(heure));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        jobs.arreter();
+        OptimisationParLots.getInstance().arreter();
+        MetriquesOptimisation.desenregistrerJmx();
+        super.destroy();
+    }
+
+    private String jobJson(JobOptimisation job, boolean stats) {
+        SuiviOptimisation suivi = job.getSuivi();
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"status\":\"ok\"")
+            .append(",\"jobId\":\"").append(job.getId()).append("\"")
+            .append(",\"etat\":\"").append(job.getStatut()).append("\"")
+            .append(",\"iteration\":").append(suivi.getIterations())
+            .append(",\"temperature\":").append(String.format(Locale.US, "%.4f", suivi.getTemperature()))
+            .append(",\"meilleurCout\":").append(Double.isNaN(suivi.getMeilleurCout()) ? "null" : String.format(Locale.US, "%.4f", suivi.getMeilleurCout()))
+            .append(",\"progression\":").append(String.format(Locale.US, "%.3f", suivi.getProgression()))
+            .append(",\"etaMs\":").append(job.estTermine() ? 0 : suivi.getEtaMillis())
+            .append(",\"dureeMs\":").append(suivi.getDureeMillis());
+        appendExecution(json, suivi);
+        appendBudget(json, suivi.getBudget());
+        if (stats) appendStats(json, suivi);
+        if (job.getErreur() != null) {
+            json.append(",\"error\":\"").append(escape(job.getErreur())).append("\"");
+        }
+        if (job.getResultat() != null) {
+            if (job.isAppliquer()) json.append(",\"applied\":true");
+            json.append(",\"activites\":");
+            appendActivites(json, job.getResultat());
+        }
+        json.append('}');
+        return json.toString();
+    }
+
+    /**
+     * Ajoute les statistiques de l'exécution: ventilation du coût final par terme, durées par
+     * phase, temps par terme (si mesuré), compteurs par type de mouvement du recuit et
+     * convergence (un élément par palier de température)
+     */
+    private static void appendStats(StringBuilder json, SuiviOptimisation suivi) {
+        json.append(",\"stats\":{")
+            .append("\"iterations\":").append(suivi.getIterations())
+            .append(",\"evaluations\":").append(suivi.getBudget().getEvaluations())
+            .append(",\"acceptes\":").append(suivi.getAcceptes());
+
+        json.append(",\"couts\":{");
+        double total = 0.0;
+        for (SuiviOptimisation.Terme terme : SuiviOptimisation.Terme.values()) {
+            double composante = suivi.getComposanteCout(terme);
+            total += composante;
+            json.append('"').append(terme.name().toLowerCase()).append("\":").append(nombre(composante)).append(',');
+        }
+        json.append("\"total\":").append(nombre(total)).append('}');
+
+        json.append(",\"phases\":{")
+            .append("\"chargementMs\":").append(suivi.getChargementMillis())
+            .append(",\"preparationMs\":").append(suivi.getPreparationMillis())
+            .append(",\"rechercheMs\":").append(suivi.getRechercheMillis())
+            .append('}');
+
+        if (suivi.isChronometre()) {
+            json.append(",\"tempsTermesMs\":{");
+            SuiviOptimisation.Terme[] termes = SuiviOptimisation.Terme.values();
+            for (int t = 0; t < termes.length; t++) {
+                if (t > 0) json.append(',');
+                json.append('"').append(termes[t].name().toLowerCase()).append("\":")
+                    .append(String.format(Locale.US, "%.3f", suivi.getNanosTerme(termes[t]) / 1e6));
+            }
+            json.append('}');
+        }
+
+        json.append(",\"mouvements\":{");
+        SuiviOptimisation.Mouvement[] mouvements = SuiviOptimisation.Mouvement.values();
+        for (int m = 0; m < mouvements.length; m++) {
+            SuiviOptimisation.Mouvement mouvement = mouvements[m];
+            long evalues = suivi.getMouvementsTires(mouvement) - suivi.getMouvementsEcartes(mouvement);
+            if (m > 0) json.append(',');
+            json.append('"').append(mouvement.name().toLowerCase()).append("\":{")
+                .append("\"tires\":").append(suivi.getMouvementsTires(mouvement))
+                .append(",\"ecartes\":").append(suivi.getMouvementsEcartes(mouvement))
+                .append(",\"acceptes\":").append(suivi.getMouvementsAcceptes(mouvement))
+                .append(",\"rejetes\":").append(evalues - suivi.getMouvementsAcceptes(mouvement))
+                .append(",\"acceptation\":").append(String.format(Locale.US, "%.3f", suivi.getTauxAcceptation(mouvement)))
+                .append('}');
+        }
+        json.append("},\"paliers\":[");
+        List<SuiviOptimisation.Palier> paliers = suivi.getPaliers();
+        for (int i = 0; i < paliers.size(); i++) {
+            SuiviOptimisation.Palier p = paliers.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"ms\":").append(p.getMillis())
+                .append(",\"temperature\":").append(String.format(Locale.US, "%.4f", p.getTemperature()))
+                .append(",\"iterations\":").append(p.getIterations())
+                .append(",\"acceptation\":").append(String.format(Locale.US, "%.3f", p.getTauxAcceptation()))
+                .append(",\"meilleurCout\":").append(String.format(Locale.US, "%.4f", p.getMeilleurCout()))
+                .append(",\"rechauffe\":").append(p.isRechauffe())
+                .append('}');
+        }
+        json.append("]}");
+    }
+
+    /**
+     * Agrégats de toutes les exécutions (même contenu que le MBean com.planning:type=Optimisation)
+     */
+    private static String metriquesJson(MetriquesOptimisation m) {
+        StringBuilder json = new StringBuilder("{\"status\":\"ok\"");
+        json.append(",\"executions\":").append(m.getExecutions())
+            .append(",\"executionsAnnulees\":").append(m.getExecutionsAnnulees())
+            .append(",\"demarragesAChaud\":").append(m.getDemarragesAChaud())
+            .append(",\"evaluations\":").append(m.getEvaluations())
+            .append(",\"dureeMoyenneMs\":").append(String.format(Locale.US, "%.1f", m.getDureeMoyenneMillis()))
+            .append(",\"chargementMoyenMs\":").append(String.format(Locale.US, "%.1f", m.getChargementMoyenMillis()))
+            .append(",\"rechercheMoyenneMs\":").append(String.format(Locale.US, "%.1f", m.getRechercheMoyenneMillis()));
+        json.append(",\"moteurs\":{");
+        int k = 0;
+        for (Map.Entry<String, Long> e : m.getExecutionsParMoteurMap().entrySet()) {
+            if (k++ > 0) json.append(',');
+            json.append('"').append(escape(e.getKey())).append("\":").append(e.getValue());
+        }
+        json.append("},\"coutMoyen\":{");
+        for (SuiviOptimisation.Terme terme : SuiviOptimisation.Terme.values()) {
+            json.append('"').append(terme.name().toLowerCase()).append("\":")
+                .append(String.format(Locale.US, "%.4f", m.getCoutMoyen(terme))).append(',');
+        }
+        json.append("\"total\":").append(String.format(Locale.US, "%.4f", m.getCoutMoyen())).append('}');
+        json.append(",\"executionsInstrumentees\":").append(m.getExecutionsInstrumentees())
+            .append(",\"tempsTermesMs\":{");
+        SuiviOptimisation.Terme[] termes = SuiviOptimisation.Terme.values();
+        for (int t = 0; t < termes.length; t++) {
+            if (t > 0) json.append(',');
+            json.append('"').append(termes[t].name().toLowerCase()).append("\":")
+                .append(String.format(Locale.US, "%.3f", m.getTempsTermeMillis(termes[t])));
+        }
+        json.append("},\"mouvements\":{");
+        SuiviOptimisation.Mouvement[] mouvements = SuiviOptimisation.Mouvement.values();
+        for (int i = 0; i < mouvements.length; i++) {
+            if (i > 0) json.append(',');
+            json.append('"').append(mouvements[i].name().toLowerCase()).append("\":{")
+                .append("\"evalues\":").append(m.getMouvementsEvalues(mouvements[i]))
+                .append(",\"acceptes\":").append(m.getMouvementsAcceptes(mouvements[i]))
+                .append(",\"acceptation\":").append(String.format(Locale.US, "%.3f", m.getTauxAcceptation(mouvements[i])))
+                .append('}');
+        }
+        json.append("},\"cacheResultats\":{")
+            .append("\"succes\":").append(m.getCacheResultatsSucces())
+            .append(",\"echecs\":").append(m.getCacheResultatsEchecs())
+            .append(",\"tauxSucces\":").append(String.format(Locale.US, "%.3f", m.getCacheResultatsTauxSucces()))
+            .append(",\"entrees\":").append(m.getCacheResultatsEntrees())
+            .append(",\"octets\":").append(m.getCacheResultatsOctets());
+        json.append("}}");
+        return json.toString();
+    }
+
+    /** Rapport d'une replanification par lots (en cours ou terminée) */
+    private static String rapportJson(RapportLot rapport) {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"status\":\"ok\"")
+            .append(",\"termine\":").append(rapport.estTermine())
+            .append(",\"dateDebut\":\"").append(rapport.getFenetreDebut()).append('"')
+            .append(",\"dateFin\":\"").append(rapport.getFenetreFin()).append('"')
+            .append(",\"utilisateurs\":").append(rapport.getUtilisateurs())
+            .append(",\"reussis\":").append(rapport.getReussis())
+            .append(",\"activites\":").append(rapport.getActivites())
+            .append(",\"ecritures\":{\"modifiees\":").append(rapport.getModifiees())
+            .append(",\"creees\":").append(rapport.getCreees())
+            .append(",\"inchangees\":").append(rapport.getInchangees()).append('}')
+            .append(",\"dureeMs\":").append(rapport.getDureeMillis())
+            .append(",\"debit\":").append(nombre(rapport.getDebit()))
+            .append(",\"latenceMs\":{\"p50\":").append(nombre(rapport.getLatenceMillis(50)))
+            .append(",\"p90\":").append(nombre(rapport.getLatenceMillis(90)))
+            .append(",\"p99\":").append(nombre(rapport.getLatenceMillis(99)))
+            .append(",\"max\":").append(nombre(rapport.getLatenceMillis(100))).append('}')
+            .append(",\"echecs\":[");
+        boolean premier = true;
+        for (Map.Entry<Integer, String> e : rapport.getEchecs().entrySet()) {
+            if (!premier) json.append(',');
+            premier = false;
+            json.append("{\"userId\":").append(e.getKey())
+                .append(",\"error\":\"").append(escape(e.getValue())).append("\"}");
+        }
+        json.append("]}");
+        return json.toString();
+    }
+
+    /** Nombre JSON, null si inconnu */
+    private static String nombre(double valeur) {
+        return Double.isNaN(valeur) ? "null" : String.format(Locale.US, "%.4f", valeur);
+    }
+
+    private static void appendActivites(StringBuilder json, List<Activite> activites) {
+        json.append('[');
+        for (int i = 0; i < activites.size(); i++) {
+            Activite a = activites.get(i);
             if (i > 0) json.append(',');
             json.append('{')
                 .append("\"id\":").append(a.getId())
@@ -86,8 +393,7 @@ public class OptimisationController extends HttpServlet {
                 .append(",\"priorite\":\"").append(escape(nvl(a.getPriorite(), "NORMALE"))).append("\"")
                 .append('}');
         }
-        json.append(']').append('}');
-        resp.getWriter().write(json.toString());
+        json.append(']');
     }
 
     private List<Activite> buildInputActivities(HttpServletRequest req, int userId, LocalDateTime dateDebut) {
@@ -138,6 +444,90 @@ public class OptimisationController extends HttpServlet {
         return list;
     }
 
+    private OptionsOptimisation buildOptions(HttpServletRequest req) {
+        OptionsOptimisation options = new OptionsOptimisation();
+        // chaines: nombre de chaînes de recuit (1 = séquentiel), parallelisme: taille du pool (0 = pool commun)
+        options.setNbChaines(Math.max(1, Math.min(parseInt(req.getParameter("chaines"), 1), MAX_CHAINES)));
+        options.setParallelisme(Math.max(0, Math.min(parseInt(req.getParameter("parallelisme"), 0), Runtime.getRuntime().availableProcessors())));
+        String mode = req.getParameter("mode");
+        if ("independant".equalsIgnoreCase(mode)) {
+            options.setMode(OptionsOptimisation.ModeParallele.INDEPENDANT);
+        } else if ("echange".equalsIgnoreCase(mode)) {
+            options.setMode(OptionsOptimisation.ModeParallele.ECHANGE);
+        }
+        String refroidissement = req.getParameter("refroidissement");
+        if ("geometrique".equalsIgnoreCase(refroidissement)) {
+            options.setRefroidissement(OptionsOptimisation.Refroidissement.GEOMETRIQUE);
+        } else if ("adaptatif".equalsIgnoreCase(refroidissement)) {
+            options.setRefroidissement(OptionsOptimisation.Refroidissement.ADAPTATIF);
+        }
+        String moteur = req.getParameter("moteur");
+        if ("recuit".equalsIgnoreCase(moteur)) {
+            options.setMoteur(OptionsOptimisation.Moteur.RECUIT);
+        } else if ("glouton".equalsIgnoreCase(moteur)) {
+            options.setMoteur(OptionsOptimisation.Moteur.GLOUTON);
+        } else if ("lns".equalsIgnoreCase(moteur)) {
+            options.setMoteur(OptionsOptimisation.Moteur.LNS);
+        }
+        String decomposition = req.getParameter("decomposition");
+        if ("jour".equalsIgnoreCase(decomposition)) {
+            options.setDecomposition(OptionsOptimisation.Decomposition.JOUR);
+        } else if ("demi-semaine".equalsIgnoreCase(decomposition)) {
+            options.setDecomposition(OptionsOptimisation.Decomposition.DEMI_SEMAINE);
+        }
+        // demarrageAChaud=false: toujours repartir d'une solution initiale neuve
+        options.setDemarrageAChaud(!"false".equalsIgnoreCase(req.getParameter("demarrageAChaud")));
+        // budgetMs: échéance, maxEvaluations: nombre maximal de voisins évalués (0 = illimité)
+        options.setBudgetMillis(Math.max(0, parseInt(req.getParameter("budgetMs"), 0)));
+        options.setBudgetEvaluations(Math.max(0, parseInt(req.getParameter("maxEvaluations"), 0)));
+        // stats: la réponse détaille l'exécution, dont le temps par terme du coût (mesuré à la demande)
+        options.setInstrumentation("true".equalsIgnoreCase(req.getParameter("stats")));
+        options.setFatigue("true".equalsIgnoreCase(req.getParameter("fatigue")));
+        // graine: exécution reproductible (sinon tirée au hasard et renvoyée dans la réponse)
+        String graine = req.getParameter("graine");
+        if (graine != null && !graine.isEmpty()) {
+            try { options.setGraine(Long.parseLong(graine)); } catch (NumberFormatException ignored) {}
+        }
+        return options;
+    }
+
+    /**
+     * Ajoute le moteur retenu, la graine (en texte: un long dépasse les entiers exacts de JavaScript)
+     * et le démarrage à chaud éventuel
+     */
+    static void appendExecution(StringBuilder json, SuiviOptimisation suivi) {
+        if (suivi.getMoteur() != null) {
+            json.append(",\"moteur\":\"").append(suivi.getMoteur()).append("\"")
+                .append(",\"graine\":\"").append(suivi.getGraine()).append("\"");
+        }
+        if (suivi.isDemarrageAChaud()) json.append(",\"demarrageAChaud\":true");
+        if (suivi.isResultatEnCache()) json.append(",\"resultatEnCache\":true");
+    }
+
+    /**
+     * Ajoute la consommation du budget à une réponse (seulement si un budget a été fixé)
+     */
+    static void appendBudget(StringBuilder json, BudgetOptimisation budget) {
+        if (budget == null || !budget.estLimite()) return;
+        json.append(",\"budget\":{")
+            .append("\"budgetMs\":").append(budget.getBudgetMillis())
+            .append(",\"maxEvaluations\":").append(budget.getBudgetEvaluations())
+            .append(",\"dureeMs\":").append(budget.getDureeMillis())
+            .append(",\"evaluations\":").append(budget.getEvaluations())
+            .append(",\"utilise\":").append(String.format(Locale.US, "%.3f", budget.getFractionUtilisee()))
+            .append('}');
+    }
+
+    /** Écritures effectuées par l'application du planning (différence avec l'état stocké) */
+    static void appendApplication(StringBuilder json, BilanApplication bilan) {
+        if (bilan == null) return;
+        json.append(",\"ecritures\":{")
+            .append("\"modifiees\":").append(bilan.getModifiees())
+            .append(",\"creees\":").append(bilan.getCreees())
+            .append(",\"inchangees\":").append(bilan.getInchangees())
+            .append('}');
+    }
+
     private Activite makeActivity(int userId, String titre, String description, LocalDateTime debut, LocalDateTime fin, String priorite) {
         Activite a = new Activite();
         a.setUtilisateurId(userId);
@@ -12,7 +12,6 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @WebServlet(name = "PlanningController", urlPatterns = {"/planning"})
 public class PlanningController extends HttpServlet {
@@ -23,13 +22,9 @@ public class PlanningController extends HttpServlet {
         LocalDate start = parseDate(req.getParameter("start"), LocalDate.now());
         LocalDate end = parseDate(req.getParameter("end"), start.plusDays(6));
 
-        List<Activite> all = new ActiviteDAOImpl().findAllByUser(userId);
         LocalDateTime sdt = start.atStartOfDay();
         LocalDateTime edt = end.plusDays(1).atStartOfDay();
-        List<Activite> inRange = all.stream()
-                .filter(a -> a.getDebut() != null && a.getFin() != null)
-                .filter(a -> !(a.getFin().isBefore(sdt) || a.getDebut().isAfter(edt)))
-                .collect(Collectors.toList());
+        List<Activite> inRange = new ActiviteDAOImpl().findByUserAndDateRange(userId, sdt, edt);
 
         StringBuilder json = new StringBuilder("[");
         for (int i = 0; i < inRange.size(); i++) {
@@ -3,12 +3,30 @@ package com.planning.dao;
 import com.planning.model.Activite;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public interface ActiviteDAO {
     Activite findById(int id);
     List<Activite> findAllByUser(int userId);
+    /**
+     * Activités de l'utilisateur qui intersectent [debut, fin) (date_debut < fin et date_fin > debut),
+     * y compris celles qui débordent de la plage, par début croissant
+     */
     List<Activite> findByUserAndDateRange(int userId, LocalDateTime debut, LocalDateTime fin);
     void save(Activite activite);
     void update(Activite activite);
     void delete(int id);
+    /** Activités dont l'id figure dans la liste (une seule requête), dans un ordre quelconque */
+    List<Activite> findByIds(List<Integer> ids);
+    /**
+     * Met à jour et crée des activités en une seule transaction (lots JDBC), annulée en entier
+     * en cas d'échec. Les activités créées reçoivent leur id.
+     */
+    void enregistrerLot(List<Activite> aMettreAJour, List<Activite> aCreer);
+    /** findByUserAndDateRange pour plusieurs utilisateurs en une requête (intersection), regroupé par utilisateur */
+    Map<Integer, List<Activite>> findByUsersAndDateRange(List<Integer> userIds, LocalDateTime debut, LocalDateTime fin);
+    /** Utilisateurs ayant au moins une activité qui intersecte la période (même sémantique que findByUsersAndDateRange) */
+    List<Integer> findUtilisateursByDateRange(LocalDateTime debut, LocalDateTime fin);
+    /** Version des activités de l'utilisateur, incrémentée à chaque écriture */
+    long getVersion(int userId);
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.planning.dao;
 import com.planning.model.ContrainteHoraire;
 import com.planning.model.ContraintePersonnelle;
 import java.util.List;
+import java.util.Map;
 
 public interface ContrainteDAO {
     List<ContrainteHoraire> findHoraireByUser(int userId);
@@ -10,4 +11,10 @@ public interface ContrainteDAO {
     void saveHoraire(ContrainteHoraire c);
     void savePersonnelle(ContraintePersonnelle c);
     void delete(int id);
+    /** Version des contraintes de l'utilisateur, incrémentée à chaque écriture */
+    long getVersion(int userId);
+    /** Contraintes horaires de plusieurs utilisateurs en une requête, regroupées par utilisateur */
+    Map<Integer, List<ContrainteHoraire>> findHoraireByUsers(List<Integer> userIds);
+    /** Contraintes personnelles de plusieurs utilisateurs en une requête, regroupées par utilisateur */
+    Map<Integer, List<ContraintePersonnelle>> findPersonnelleByUsers(List<Integer> userIds);
 }
\ No newline at end of file
@@ -3,13 +3,146 @@ package com.planning.dao.impl;
 import com.planning.dao.ActiviteDAO;
 import com.planning.dao.DBConnection;
 import com.planning.model.Activite;
+import com.planning.util.CacheLRU;
 
 import java.sql.*;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
 
 public class ActiviteDAOImpl implements ActiviteDAO {
+    // Versions partagées par toutes les instances (les contrôleurs créent leurs propres DAO)
+    private static final ConcurrentHashMap<Integer, AtomicLong> VERSIONS = new ConcurrentHashMap<>();
+
+    // Index d'intervalles par utilisateur, chargé à la première recherche et tenu à jour par les écritures
+    private static final int CAPACITE_INDEX = 1000;
+    /** Au-delà, l'historique n'est pas indexé en mémoire: les recherches passent par la base */
+    private static final int TAILLE_MAX_INDEX = 20000;
+    /** Activités indexées, tous utilisateurs confondus (~100 octets chacune avec le titre) */
+    private static final long ENTREES_MAX_INDEX = 500_000;
+    private static final CacheLRU<Integer, IndexActivites> INDEX =
+        new CacheLRU<>(CAPACITE_INDEX, ENTREES_MAX_INDEX, index -> index.taille() + 1L);
+
+    // Durée maximale (secondes) des activités de chaque utilisateur: borne basse cherchable des
+    // recherches de plage en base. Ne fait que croître (une suppression la laisse valide)
+    private static final ConcurrentHashMap<Integer, Long> DUREES_MAX = new ConcurrentHashMap<>();
+
+    private static final Comparator<Activite> PAR_DEBUT =
+        Comparator.comparing(Activite::getDebut).thenComparingInt(Activite::getId);
+
+    @Override
+    public long getVersion(int userId) {
+        AtomicLong v = VERSIONS.get(userId);
+        return v != null ? v.get() : 0L;
+    }
+
+    private static void incrementerVersion(int userId) {
+        VERSIONS.computeIfAbsent(userId, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Écriture effectuée pour l'utilisateur: nouvelle version, et report sur son index s'il est
+     * chargé. Sous le verrou de l'index, pour qu'un chargement concurrent ne soit pas mémorisé.
+     */
+    private static void ecrite(int userId, UnaryOperator<IndexActivites> report) {
+        synchronized (INDEX) {
+            incrementerVersion(userId);
+            IndexActivites index = INDEX.get(userId);
+            if (index != null && index != IndexActivites.NON_INDEXE) INDEX.put(userId, report.apply(index));
+        }
+    }
+
+    /**
+     * Report d'activités écrites sur la durée maximale mémorisée de leur utilisateur
+     * (après ecrite, pour qu'un chargement concurrent soit soit écarté, soit allongé ici)
+     */
+    private static void allonger(int userId, List<Activite> activites) {
+        long duree = 0;
+        for (Activite a : activites) {
+            if (a.getDebut() != null && a.getFin() != null) {
+                duree = Math.max(duree, Duration.between(a.getDebut(), a.getFin()).getSeconds());
+            }
+        }
+        long ecrite = duree;
+        DUREES_MAX.computeIfPresent(userId, (u, d) -> Math.max(d, ecrite));
+    }
+
+    /**
+     * Durée maximale en secondes des activités de l'utilisateur, lue une fois (parcours de l'index
+     * composite) puis tenue à jour par les écritures; null en cas d'erreur
+     */
+    private Long dureeMax(int userId) {
+        Long duree = DUREES_MAX.get(userId);
+        if (duree != null) return duree;
+        long version = getVersion(userId);
+        String sql = "SELECT COALESCE(MAX(TIMESTAMPDIFF(SECOND, date_debut, date_fin)), 0) FROM activites WHERE utilisateur_id = ?";
+        try (Connection c = DBConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                duree = rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+        synchronized (INDEX) {
+            // Une écriture a eu lieu pendant la lecture: le maximum est peut-être dépassé, ne pas le garder
+            if (getVersion(userId) == version) DUREES_MAX.putIfAbsent(userId, duree);
+        }
+        return duree;
+    }
+
+    /** Charge et mémorise l'index de l'utilisateur; null en cas d'erreur */
+    private IndexActivites chargerIndex(int userId) {
+        long version = getVersion(userId);
+        List<Activite> creneaux = findCreneauxByUser(userId);
+        if (creneaux == null) return null;
+        IndexActivites index = creneaux.size() > TAILLE_MAX_INDEX ? IndexActivites.NON_INDEXE : IndexActivites.de(creneaux);
+        synchronized (INDEX) {
+            // Une écriture a eu lieu pendant le chargement: il est peut-être incomplet, ne pas le garder
+            if (getVersion(userId) == version) INDEX.put(userId, index);
+        }
+        return index;
+    }
+
+    /**
+     * Créneaux des activités de l'utilisateur (id et dates), au plus TAILLE_MAX_INDEX + 1;
+     * null en cas d'erreur
+     */
+    private List<Activite> findCreneauxByUser(int userId) {
+        List<Activite> list = new ArrayList<>();
+        String sql = "SELECT id, date_debut, date_fin FROM activites "
+            + "WHERE utilisateur_id = ? AND date_debut IS NOT NULL AND date_fin IS NOT NULL LIMIT ?";
+        try (Connection c = DBConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            ps.setInt(2, TAILLE_MAX_INDEX + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Activite a = new Activite();
+                    a.setId(rs.getInt("id"));
+                    a.setDebut(rs.getTimestamp("date_debut").toLocalDateTime());
+                    a.setFin(rs.getTimestamp("date_fin").toLocalDateTime());
+                    list.add(a);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+        return list;
+    }
 
     private Activite map(ResultSet rs) throws SQLException {
         Activite a = new Activite();
@@ -77,13 +210,25 @@ public class ActiviteDAOImpl implements ActiviteDAO {
                 if (keys.next()) a.setId(keys.getInt(1));
             }
         } catch (SQLException e) { e.printStackTrace(); }
+        ecrite(a.getUtilisateurId(), index -> a.getId() > 0 ? index.avec(Collections.singletonList(a)) : index);
+        allonger(a.getUtilisateurId(), Collections.singletonList(a));
     }
 
     @Override
     public void update(Activite a) {
+        String owner = "SELECT utilisateur_id FROM activites WHERE id = ?";
         String sql = "UPDATE activites SET titre=?, description=?, date_debut=?, date_fin=?, priorite=?, statut=?, categorie_id=? WHERE id=?";
+        // L'UPDATE ne change pas utilisateur_id: l'index à tenir à jour est celui du propriétaire
+        // de la ligne, pas celui de l'utilisateur porté par la requête
+        Integer userId = null;
         try (Connection c = DBConnection.getConnection();
+             PreparedStatement q = c.prepareStatement(owner);
              PreparedStatement ps = c.prepareStatement(sql)) {
+            q.setInt(1, a.getId());
+            try (ResultSet rs = q.executeQuery()) {
+                if (rs.next()) userId = rs.getInt(1);
+            }
+            if (userId == null) return;
             ps.setString(1, a.getTitre());
             ps.setString(2, a.getDescription());
             ps.setTimestamp(3, a.getDebut() != null ? Timestamp.valueOf(a.getDebut()) : null);
@@ -93,28 +238,71 @@ public class ActiviteDAOImpl implements ActiviteDAO {
             if (a.getCategorieId() != null) ps.setInt(7, a.getCategorieId()); else ps.setNull(7, Types.INTEGER);
             ps.setInt(8, a.getId());
             ps.executeUpdate();
-        } catch (SQLException e) { e.printStackTrace(); }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            if (userId == null) return;
+            // État en base incertain: l'index sera rechargé
+            synchronized (INDEX) { INDEX.invalider(userId); }
+        }
+        ecrite(userId, index -> index.avec(Collections.singletonList(a)));
+        allonger(userId, Collections.singletonList(a));
     }
 
     @Override
     public void delete(int id) {
+        String owner = "SELECT utilisateur_id FROM activites WHERE id = ?";
         String sql = "DELETE FROM activites WHERE id = ?";
         try (Connection c = DBConnection.getConnection();
+             PreparedStatement q = c.prepareStatement(owner);
              PreparedStatement ps = c.prepareStatement(sql)) {
+            q.setInt(1, id);
+            Integer userId = null;
+            try (ResultSet rs = q.executeQuery()) {
+                if (rs.next()) userId = rs.getInt(1);
+            }
             ps.setInt(1, id);
-            ps.executeUpdate();
+            if (ps.executeUpdate() > 0 && userId != null) ecrite(userId, index -> index.sans(id));
         } catch (SQLException e) { e.printStackTrace(); }
     }
 
     @Override
     public List<Activite> findByUserAndDateRange(int userId, LocalDateTime debut, LocalDateTime fin) {
+        IndexActivites index = INDEX.get(userId);
+        if (index == null) index = chargerIndex(userId);
+        // Historique trop long ou chargement en échec: requête de plage en base
+        if (index == null || index == IndexActivites.NON_INDEXE) return findByUserAndDateRangeEnBase(userId, debut, fin);
+        List<Integer> ids = index.chevauchantes(debut, fin);
+        List<Activite> list = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) return list;
+        // Lignes complètes par clé primaire; une ligne modifiée entre-temps est revérifiée, et une
+        // ligne d'un autre utilisateur n'est jamais rendue
+        for (Activite a : findByIds(ids)) {
+            if (a.getUtilisateurId() == userId && a.getDebut() != null && a.getFin() != null && a.getDebut().isBefore(fin) && a.getFin().isAfter(debut)) {
+                list.add(a);
+            }
+        }
+        list.sort(PAR_DEBUT);
+        return list;
+    }
+
+    /** Activités de l'utilisateur qui intersectent la plage, filtrées en base (index composite) */
+    private List<Activite> findByUserAndDateRangeEnBase(int userId, LocalDateTime debut, LocalDateTime fin) {
         List<Activite> list = new ArrayList<>();
-        String sql = "SELECT * FROM activites WHERE utilisateur_id = ? AND date_debut >= ? AND date_fin <= ? ORDER BY date_debut";
+        // date_fin > debut n'est qu'un filtre sur l'index: sans borne basse sur date_debut, tout
+        // l'historique antérieur à fin serait parcouru. Une activité qui finit après debut commence
+        // au plus tôt debut - durée maximale (+1 s: arrondi des fractions de seconde par DATETIME)
+        Long duree = dureeMax(userId);
+        // Ids cherchés sur l'index couvrant (utilisateur_id, date_debut, date_fin), lignes lues par clé primaire
+        String sql = "SELECT a.* FROM activites a JOIN (SELECT id FROM activites "
+            + "WHERE utilisateur_id = ? AND date_debut < ? AND date_fin > ?"
+            + (duree != null ? " AND date_debut >= ?" : "") + ") plage ON plage.id = a.id "
+            + "ORDER BY a.date_debut";
         try (Connection c = DBConnection.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, userId);
-            ps.setTimestamp(2, Timestamp.valueOf(debut));
-            ps.setTimestamp(3, Timestamp.valueOf(fin));
+            ps.setTimestamp(2, Timestamp.valueOf(fin));
+            ps.setTimestamp(3, Timestamp.valueOf(debut));
+            if (duree != null) ps.setTimestamp(4, Timestamp.valueOf(debut.minusSeconds(duree + 1)));
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) list.add(map(rs));
             }
@@ -123,4 +311,133 @@ public class ActiviteDAOImpl implements ActiviteDAO {
         }
         return list;
     }
+
+    @Override
+    public List<Activite> findByIds(List<Integer> ids) {
+        List<Activite> list = new ArrayList<>();
+        if (ids.isEmpty()) return list;
+        StringBuilder sql = new StringBuilder("SELECT * FROM activites WHERE id IN (");
+        for (int i = 0; i < ids.size(); i++) sql.append(i == 0 ? "?" : ",?");
+        sql.append(')');
+        try (Connection c = DBConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql.toString())) {
+            for (int i = 0; i < ids.size(); i++) ps.setInt(i + 1, ids.get(i));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(map(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+
+    @Override
+    public void enregistrerLot(List<Activite> aMettreAJour, List<Activite> aCreer) {
+        if (aMettreAJour.isEmpty() && aCreer.isEmpty()) return;
+        String sqlUpdate = "UPDATE activites SET titre=?, description=?, date_debut=?, date_fin=?, priorite=?, statut=?, categorie_id=? WHERE id=?";
+        String sqlInsert = "INSERT INTO activites(titre, description, date_debut, date_fin, priorite, statut, categorie_id, utilisateur_id) VALUES(?,?,?,?,?,?,?,?)";
+        try (Connection c = DBConnection.getConnection()) {
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try {
+                if (!aMettreAJour.isEmpty()) {
+                    try (PreparedStatement ps = c.prepareStatement(sqlUpdate)) {
+                        for (Activite a : aMettreAJour) {
+                            ps.setString(1, a.getTitre());
+                            ps.setString(2, a.getDescription());
+                            ps.setTimestamp(3, a.getDebut() != null ? Timestamp.valueOf(a.getDebut()) : null);
+                            ps.setTimestamp(4, a.getFin() != null ? Timestamp.valueOf(a.getFin()) : null);
+                            ps.setString(5, a.getPriorite());
+                            ps.setString(6, a.getStatut());
+                            if (a.getCategorieId() != null) ps.setInt(7, a.getCategorieId()); else ps.setNull(7, Types.INTEGER);
+                            ps.setInt(8, a.getId());
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+                if (!aCreer.isEmpty()) {
+                    try (PreparedStatement ps = c.prepareStatement(sqlInsert, Statement.RETURN_GENERATED_KEYS)) {
+                        for (Activite a : aCreer) {
+                            ps.setString(1, a.getTitre());
+                            ps.setString(2, a.getDescription());
+                            ps.setTimestamp(3, a.getDebut() != null ? Timestamp.valueOf(a.getDebut()) : null);
+                            ps.setTimestamp(4, a.getFin() != null ? Timestamp.valueOf(a.getFin()) : null);
+                            ps.setString(5, a.getPriorite() != null ? a.getPriorite() : "NORMALE");
+                            ps.setString(6, a.getStatut() != null ? a.getStatut() : "PLANIFIE");
+                            if (a.getCategorieId() != null) ps.setInt(7, a.getCategorieId()); else ps.setNull(7, Types.INTEGER);
+                            ps.setInt(8, a.getUtilisateurId());
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                        try (ResultSet keys = ps.getGeneratedKeys()) {
+                            for (Activite a : aCreer) {
+                                if (keys.next()) a.setId(keys.getInt(1));
+                            }
+                        }
+                    }
+                }
+                c.commit();
+                Map<Integer, List<Activite>> parUtilisateur = new LinkedHashMap<>();
+                for (Activite a : aMettreAJour) parUtilisateur.computeIfAbsent(a.getUtilisateurId(), u -> new ArrayList<>()).add(a);
+                for (Activite a : aCreer) parUtilisateur.computeIfAbsent(a.getUtilisateurId(), u -> new ArrayList<>()).add(a);
+                for (Map.Entry<Integer, List<Activite>> e : parUtilisateur.entrySet()) {
+                    ecrite(e.getKey(), index -> index.avec(e.getValue()));
+                    allonger(e.getKey(), e.getValue());
+                }
+            } catch (SQLException | RuntimeException e) {
+                // Avant de rétablir l'auto-commit, qui validerait les UPDATE en attente
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            // Rien n'a été écrit: l'appelant doit le savoir (contrairement aux écritures unitaires)
+            throw new IllegalStateException("Échec de l'enregistrement du planning: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<Integer, List<Activite>> findByUsersAndDateRange(List<Integer> userIds, LocalDateTime debut, LocalDateTime fin) {
+        Map<Integer, List<Activite>> parUtilisateur = new HashMap<>();
+        if (userIds.isEmpty()) return parUtilisateur;
+        StringBuilder sql = new StringBuilder("SELECT * FROM activites WHERE utilisateur_id IN (");
+        for (int i = 0; i < userIds.size(); i++) sql.append(i == 0 ? "?" : ",?");
+        sql.append(") AND date_debut < ? AND date_fin > ? ORDER BY utilisateur_id, date_debut");
+        try (Connection c = DBConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql.toString())) {
+            int k = 1;
+            for (Integer id : userIds) ps.setInt(k++, id);
+            ps.setTimestamp(k++, Timestamp.valueOf(fin));
+            ps.setTimestamp(k, Timestamp.valueOf(debut));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Activite a = map(rs);
+                    parUtilisateur.computeIfAbsent(a.getUtilisateurId(), u -> new ArrayList<>()).add(a);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return parUtilisateur;
+    }
+
+    @Override
+    public List<Integer> findUtilisateursByDateRange(LocalDateTime debut, LocalDateTime fin) {
+        List<Integer> list = new ArrayList<>();
+        // Même sémantique (intersection) que findByUsersAndDateRange; couvert par idx_activites_dates
+        String sql = "SELECT DISTINCT utilisateur_id FROM activites WHERE date_debut < ? AND date_fin > ? ORDER BY utilisateur_id";
+        try (Connection c = DBConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(fin));
+            ps.setTimestamp(2, Timestamp.valueOf(debut));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(rs.getInt(1));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
 }
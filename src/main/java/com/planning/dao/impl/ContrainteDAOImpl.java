@@ -9,9 +9,52 @@ import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ContrainteDAOImpl implements ContrainteDAO {
+    // Versions partagées par toutes les instances (les contrôleurs créent leurs propres DAO)
+    private static final ConcurrentHashMap<Integer, AtomicLong> VERSIONS = new ConcurrentHashMap<>();
+
+    @Override
+    public long getVersion(int userId) {
+        AtomicLong v = VERSIONS.get(userId);
+        return v != null ? v.get() : 0L;
+    }
+
+    private static void incrementerVersion(int userId) {
+        VERSIONS.computeIfAbsent(userId, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static ContrainteHoraire mapHoraire(ResultSet rs) throws SQLException {
+        ContrainteHoraire ch = new ContrainteHoraire();
+        ch.setId(rs.getInt("id"));
+        ch.setUtilisateurId(rs.getInt("utilisateur_id"));
+        ch.setJourSemaine(rs.getString("jour_semaine"));
+        Time t1 = rs.getTime("heure_debut");
+        Time t2 = rs.getTime("heure_fin");
+        ch.setHeureDebut(t1 != null ? t1.toLocalTime() : null);
+        ch.setHeureFin(t2 != null ? t2.toLocalTime() : null);
+        ch.setTypeContrainte(rs.getString("type_contrainte"));
+        return ch;
+    }
+
+    private static ContraintePersonnelle mapPersonnelle(ResultSet rs) throws SQLException {
+        ContraintePersonnelle cp = new ContraintePersonnelle();
+        cp.setId(rs.getInt("id"));
+        cp.setUtilisateurId(rs.getInt("utilisateur_id"));
+        Timestamp d1 = rs.getTimestamp("date_debut");
+        Timestamp d2 = rs.getTimestamp("date_fin");
+        cp.setDateDebut(d1 != null ? d1.toLocalDateTime() : null);
+        cp.setDateFin(d2 != null ? d2.toLocalDateTime() : null);
+        cp.setMotif(rs.getString("motif"));
+        cp.setTypeContrainte(rs.getString("type_contrainte"));
+        return cp;
+    }
+
     @Override
     public List<ContrainteHoraire> findHoraireByUser(int userId) {
         List<ContrainteHoraire> out = new ArrayList<>();
@@ -19,18 +62,7 @@ public class ContrainteDAOImpl implements ContrainteDAO {
         try (Connection c = DBConnection.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, userId);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    ContrainteHoraire ch = new ContrainteHoraire();
-                    ch.setId(rs.getInt("id"));
-                    ch.setUtilisateurId(rs.getInt("utilisateur_id"));
-                    ch.setJourSemaine(rs.getString("jour_semaine"));
-                    Time t1 = rs.getTime("heure_debut");
-                    Time t2 = rs.getTime("heure_fin");
-                    ch.setHeureDebut(t1 != null ? t1.toLocalTime() : null);
-                    ch.setHeureFin(t2 != null ? t2.toLocalTime() : null);
-                    ch.setTypeContrainte(rs.getString("type_contrainte"));
-                    out.add(ch);
-                }
+                while (rs.next()) out.add(mapHoraire(rs));
             }
         } catch (SQLException e) { e.printStackTrace(); }
         return out;
@@ -43,18 +75,7 @@ public class ContrainteDAOImpl implements ContrainteDAO {
         try (Connection c = DBConnection.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, userId);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    ContraintePersonnelle cp = new ContraintePersonnelle();
-                    cp.setId(rs.getInt("id"));
-                    cp.setUtilisateurId(rs.getInt("utilisateur_id"));
-                    Timestamp d1 = rs.getTimestamp("date_debut");
-                    Timestamp d2 = rs.getTimestamp("date_fin");
-                    cp.setDateDebut(d1 != null ? d1.toLocalDateTime() : null);
-                    cp.setDateFin(d2 != null ? d2.toLocalDateTime() : null);
-                    cp.setMotif(rs.getString("motif"));
-                    cp.setTypeContrainte(rs.getString("type_contrainte"));
-                    out.add(cp);
-                }
+                while (rs.next()) out.add(mapPersonnelle(rs));
             }
         } catch (SQLException e) { e.printStackTrace(); }
         return out;
@@ -74,6 +95,7 @@ public class ContrainteDAOImpl implements ContrainteDAO {
                 if (keys.next()) cst.setId(keys.getInt(1));
             }
         } catch (SQLException e) { e.printStackTrace(); }
+        incrementerVersion(cst.getUtilisateurId());
     }
 
     @Override
@@ -90,18 +112,73 @@ public class ContrainteDAOImpl implements ContrainteDAO {
                 if (keys.next()) cst.setId(keys.getInt(1));
             }
         } catch (SQLException e) { e.printStackTrace(); }
+        incrementerVersion(cst.getUtilisateurId());
     }
 
     @Override
     public void delete(int id) {
         String[] tables = {"contraintes_personnelles", "contraintes_horaires"};
         for (String tbl : tables) {
+            String owner = "SELECT utilisateur_id FROM " + tbl + " WHERE id=?";
             String sql = "DELETE FROM " + tbl + " WHERE id=?";
-            try (Connection c = DBConnection.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            try (Connection c = DBConnection.getConnection();
+                 PreparedStatement q = c.prepareStatement(owner);
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                q.setInt(1, id);
+                Integer userId = null;
+                try (ResultSet rs = q.executeQuery()) {
+                    if (rs.next()) userId = rs.getInt(1);
+                }
+                if (userId == null) continue;
                 ps.setInt(1, id);
                 int ct = ps.executeUpdate();
-                if (ct > 0) return;
+                if (ct > 0) {
+                    incrementerVersion(userId);
+                    return;
+                }
             } catch (SQLException e) { e.printStackTrace(); }
         }
     }
+
+    @Override
+    public Map<Integer, List<ContrainteHoraire>> findHoraireByUsers(List<Integer> userIds) {
+        Map<Integer, List<ContrainteHoraire>> out = new HashMap<>();
+        if (userIds.isEmpty()) return out;
+        String sql = "SELECT * FROM contraintes_horaires WHERE utilisateur_id IN (" + marqueurs(userIds.size())
+            + ") ORDER BY utilisateur_id, FIELD(jour_semaine,'LUNDI','MARDI','MERCREDI','JEUDI','VENDREDI','SAMEDI','DIMANCHE'), heure_debut";
+        try (Connection c = DBConnection.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 0; i < userIds.size(); i++) ps.setInt(i + 1, userIds.get(i));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ContrainteHoraire ch = mapHoraire(rs);
+                    out.computeIfAbsent(ch.getUtilisateurId(), u -> new ArrayList<>()).add(ch);
+                }
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return out;
+    }
+
+    @Override
+    public Map<Integer, List<ContraintePersonnelle>> findPersonnelleByUsers(List<Integer> userIds) {
+        Map<Integer, List<ContraintePersonnelle>> out = new HashMap<>();
+        if (userIds.isEmpty()) return out;
+        String sql = "SELECT * FROM contraintes_personnelles WHERE utilisateur_id IN (" + marqueurs(userIds.size())
+            + ") ORDER BY utilisateur_id, date_debut";
+        try (Connection c = DBConnection.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 0; i < userIds.size(); i++) ps.setInt(i + 1, userIds.get(i));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ContraintePersonnelle cp = mapPersonnelle(rs);
+                    out.computeIfAbsent(cp.getUtilisateurId(), u -> new ArrayList<>()).add(cp);
+                }
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return out;
+    }
+
+    private static String marqueurs(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) sb.append(i == 0 ? "?" : ",?");
+        return sb.toString();
+    }
 }
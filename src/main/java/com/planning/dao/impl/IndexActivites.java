@@ -0,0 +1,139 @@
+package com.planning.dao.impl;
+
+import com.planning.model.Activite;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Index d'intervalles des activités d'un utilisateur (id, début, fin), pour trouver les
+ * activités d'une plage en O(log n + k) sans parcourir l'historique en base.
+ *
+ * Les activités sont triées par début; chaque rang porte la fin maximale du sous-arbre
+ * implicite dont il est le milieu (arbre d'intervalles sur tableau). L'index est immuable:
+ * une écriture en construit un nouveau en O(n), les lectures ne prennent aucun verrou.
+ * Les activités sans début ou sans fin n'y figurent pas.
+ */
+final class IndexActivites {
+
+    private static final Comparator<Activite> PAR_DEBUT =
+        Comparator.comparing(Activite::getDebut).thenComparingInt(Activite::getId);
+
+    /** Marque un utilisateur dont l'historique est trop long pour être indexé */
+    static final IndexActivites NON_INDEXE = new IndexActivites(new int[0], new long[0], new long[0]);
+
+    private final int[] ids;
+    private final long[] debuts;
+    private final long[] fins;
+    private final long[] finMax;
+
+    private IndexActivites(int[] ids, long[] debuts, long[] fins) {
+        this.ids = ids;
+        this.debuts = debuts;
+        this.fins = fins;
+        this.finMax = new long[ids.length];
+        construire(0, ids.length);
+    }
+
+    /** Index des activités données (ordre quelconque) */
+    static IndexActivites de(List<Activite> activites) {
+        return new IndexActivites(new int[0], new long[0], new long[0]).avec(activites);
+    }
+
+    int taille() { return ids.length; }
+
+    /** Ids des activités qui intersectent [debut, fin) (début < fin et fin > debut), par début croissant */
+    List<Integer> chevauchantes(LocalDateTime debut, LocalDateTime fin) {
+        List<Integer> resultat = new ArrayList<>();
+        chercher(0, ids.length, secondes(debut), secondes(fin), resultat);
+        return resultat;
+    }
+
+    /**
+     * Nouvel index où les activités écrites (créées ou modifiées) remplacent leur version indexée:
+     * fusion des tableaux triés, sans retrier l'existant
+     */
+    IndexActivites avec(List<Activite> ecrites) {
+        int[] remplacees = new int[ecrites.size()];
+        List<Activite> ajouts = new ArrayList<>(ecrites.size());
+        for (int e = 0; e < remplacees.length; e++) {
+            Activite a = ecrites.get(e);
+            remplacees[e] = a.getId();
+            if (a.getDebut() != null && a.getFin() != null) ajouts.add(a);
+        }
+        Arrays.sort(remplacees);
+        ajouts.sort(PAR_DEBUT);
+        int n = 0;
+        for (int id : ids) if (!contient(remplacees, id)) n++;
+        n += ajouts.size();
+        int[] nIds = new int[n];
+        long[] nDebuts = new long[n];
+        long[] nFins = new long[n];
+        int r = 0;
+        int k = 0;
+        for (int m = 0; m < n; m++) {
+            while (r < ids.length && contient(remplacees, ids[r])) r++;
+            Activite a = k < ajouts.size() ? ajouts.get(k) : null;
+            long debutAjout = a != null ? secondes(a.getDebut()) : Long.MAX_VALUE;
+            if (r < ids.length && (debuts[r] < debutAjout || (debuts[r] == debutAjout && ids[r] < a.getId()))) {
+                nIds[m] = ids[r];
+                nDebuts[m] = debuts[r];
+                nFins[m] = fins[r];
+                r++;
+            } else {
+                nIds[m] = a.getId();
+                nDebuts[m] = debutAjout;
+                nFins[m] = secondes(a.getFin());
+                k++;
+            }
+        }
+        return new IndexActivites(nIds, nDebuts, nFins);
+    }
+
+    /** Nouvel index sans l'activité supprimée */
+    IndexActivites sans(int id) {
+        return avec(Collections.singletonList(supprimee(id)));
+    }
+
+    // ===== Internes =====
+
+    private static boolean contient(int[] triees, int id) {
+        return triees.length == 1 ? triees[0] == id : Arrays.binarySearch(triees, id) >= 0;
+    }
+
+    /** Activité sans créneau: avec() la retire de l'index sans rien ajouter */
+    private static Activite supprimee(int id) {
+        Activite a = new Activite();
+        a.setId(id);
+        return a;
+    }
+
+    private long construire(int lo, int hi) {
+        if (lo >= hi) return Long.MIN_VALUE;
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(fins[mid], Math.max(construire(lo, mid), construire(mid + 1, hi)));
+        finMax[mid] = max;
+        return max;
+    }
+
+    private void chercher(int lo, int hi, long debut, long fin, List<Integer> resultat) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        // Tout le sous-arbre se termine avant le début demandé
+        if (finMax[mid] <= debut) return;
+        chercher(lo, mid, debut, fin, resultat);
+        // Le milieu et tout ce qui suit commencent après la fin demandée
+        if (debuts[mid] >= fin) return;
+        if (fins[mid] > debut) resultat.add(ids[mid]);
+        chercher(mid + 1, hi, debut, fin, resultat);
+    }
+
+    private static long secondes(LocalDateTime dt) {
+        return dt.toEpochSecond(ZoneOffset.UTC);
+    }
+}
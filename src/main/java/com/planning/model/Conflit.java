@@ -1,6 +1,7 @@
 package com.planning.model;
 
 import java.time.LocalDateTime;
+import java.util.function.Supplier;
 
 public class Conflit {
     private int id;
@@ -13,6 +14,7 @@ public class Conflit {
     private String type; // CHEVAUCHEMENT, CONTRAINTE_HORAIRE, CONTRAINTE_PERSONNELLE, SOMMEIL
     private String severite; // CRITIQUE, MAJEURE, MINEURE
     private String description;
+    private Supplier<String> descriptionDifferee;
 
     public Conflit() {}
 
@@ -50,6 +52,21 @@ public class Conflit {
     public String getSeverite() { return severite; }
     public void setSeverite(String severite) { this.severite = severite; }
 
-    public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public String getDescription() {
+        if (description == null && descriptionDifferee != null) {
+            description = descriptionDifferee.get();
+            descriptionDifferee = null;
+        }
+        return description;
+    }
+    public void setDescription(String description) {
+        this.description = description;
+        this.descriptionDifferee = null;
+    }
+
+    /** Description formatée seulement à la première lecture (sérialisation) */
+    public void setDescriptionDifferee(Supplier<String> descriptionDifferee) {
+        this.description = null;
+        this.descriptionDifferee = descriptionDifferee;
+    }
 }
@@ -1,11 +1,15 @@
 package com.planning.model;
 
+import java.time.DayOfWeek;
 import java.time.LocalTime;
 
 public class ContrainteHoraire {
     private int id;
     private int utilisateurId;
+    private static final String[] JOURS = {"LUNDI", "MARDI", "MERCREDI", "JEUDI", "VENDREDI", "SAMEDI", "DIMANCHE"};
+
     private String jourSemaine; // LUNDI .. DIMANCHE
+    private DayOfWeek jour;     // jourSemaine décodé une fois, null si inconnu
     private LocalTime heureDebut;
     private LocalTime heureFin;
     private String typeContrainte; // DISPONIBLE, INDISPONIBLE
@@ -19,7 +23,15 @@ public class ContrainteHoraire {
     public void setUtilisateurId(int utilisateurId) { this.utilisateurId = utilisateurId; }
 
     public String getJourSemaine() { return jourSemaine; }
-    public void setJourSemaine(String jourSemaine) { this.jourSemaine = jourSemaine; }
+    public void setJourSemaine(String jourSemaine) {
+        this.jourSemaine = jourSemaine;
+        this.jour = null;
+        for (int i = 0; i < JOURS.length; i++) {
+            if (JOURS[i].equals(jourSemaine)) this.jour = DayOfWeek.of(i + 1);
+        }
+    }
+
+    public DayOfWeek getJour() { return jour; }
 
     public LocalTime getHeureDebut() { return heureDebut; }
     public void setHeureDebut(LocalTime heureDebut) { this.heureDebut = heureDebut; }
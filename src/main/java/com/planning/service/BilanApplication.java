@@ -0,0 +1,21 @@
+package com.planning.service;
+
+/**
+ * Résultat de l'application d'un planning optimisé: activités réellement écrites
+ * (modifiées ou créées) et activités déjà à jour en base, laissées telles quelles.
+ */
+public final class BilanApplication {
+    private final int modifiees;
+    private final int creees;
+    private final int inchangees;
+
+    BilanApplication(int modifiees, int creees, int inchangees) {
+        this.modifiees = modifiees;
+        this.creees = creees;
+        this.inchangees = inchangees;
+    }
+
+    public int getModifiees() { return modifiees; }
+    public int getCreees() { return creees; }
+    public int getInchangees() { return inchangees; }
+}
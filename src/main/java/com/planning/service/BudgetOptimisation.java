@@ -0,0 +1,98 @@
+package com.planning.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Budget d'une optimisation: échéance en millisecondes et/ou nombre maximal d'évaluations
+ * de voisins (0 = illimité). La fraction consommée pilote le refroidissement pour que
+ * la température minimale soit atteinte au plus tard à l'épuisement du budget.
+ */
+public class BudgetOptimisation {
+    private final long budgetMillis;
+    private final long budgetEvaluations;
+    private final long debutNanos = System.nanoTime();
+    private final AtomicLong evaluations = new AtomicLong();
+    private volatile long finNanos;
+
+    public BudgetOptimisation(long budgetMillis, long budgetEvaluations) {
+        this.budgetMillis = Math.max(0, budgetMillis);
+        this.budgetEvaluations = Math.max(0, budgetEvaluations);
+    }
+
+    public static BudgetOptimisation illimite() {
+        return new BudgetOptimisation(0, 0);
+    }
+
+    public boolean estLimite() {
+        return budgetMillis > 0 || budgetEvaluations > 0;
+    }
+
+    /**
+     * Fraction du budget consommée (0 à 1), la plus contraignante des deux limites
+     */
+    public double getFractionUtilisee() {
+        double fraction = 0.0;
+        if (budgetMillis > 0) {
+            fraction = Math.max(fraction, getDureeMillisPrecise() / budgetMillis);
+        }
+        if (budgetEvaluations > 0) {
+            fraction = Math.max(fraction, evaluations.get() / (double) budgetEvaluations);
+        }
+        return Math.min(1.0, fraction);
+    }
+
+    public boolean estEpuise() {
+        return estLimite() && getFractionUtilisee() >= 1.0;
+    }
+
+    /**
+     * Température imposée par le budget: interpolation géométrique entre la température
+     * initiale et la température minimale selon la fraction consommée
+     */
+    double temperaturePlafond(double temperatureInitiale, double temperatureMinimale) {
+        if (!estLimite()) return temperatureInitiale;
+        return temperatureInitiale * Math.pow(temperatureMinimale / temperatureInitiale, getFractionUtilisee());
+    }
+
+    /**
+     * Réserve jusqu'à {@code demandees} évaluations
+     * @return le nombre d'évaluations accordées (0 si le budget est épuisé)
+     */
+    int reserver(int demandees) {
+        if (budgetMillis > 0 && getDureeMillisPrecise() >= budgetMillis) return 0;
+        if (budgetEvaluations <= 0) {
+            evaluations.addAndGet(demandees);
+            return demandees;
+        }
+        while (true) {
+            long courant = evaluations.get();
+            long accordees = Math.min(demandees, budgetEvaluations - courant);
+            if (accordees <= 0) return 0;
+            if (evaluations.compareAndSet(courant, courant + accordees)) return (int) accordees;
+        }
+    }
+
+    /**
+     * Rend des évaluations réservées mais non consommées (tirages écartés sans être évalués)
+     */
+    void rendre(int nonConsommees) {
+        if (nonConsommees > 0) evaluations.addAndGet(-nonConsommees);
+    }
+
+    void terminer() {
+        finNanos = System.nanoTime();
+    }
+
+    public long getBudgetMillis() { return budgetMillis; }
+    public long getBudgetEvaluations() { return budgetEvaluations; }
+    public long getEvaluations() { return evaluations.get(); }
+
+    public long getDureeMillis() {
+        return (long) getDureeMillisPrecise();
+    }
+
+    private double getDureeMillisPrecise() {
+        long fin = finNanos != 0 ? finNanos : System.nanoTime();
+        return (fin - debutNanos) / 1_000_000.0;
+    }
+}
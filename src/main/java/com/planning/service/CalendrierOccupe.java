@@ -0,0 +1,78 @@
+package com.planning.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Temps occupé d'un calendrier sous forme d'intervalles disjoints triés (minutes depuis l'epoch),
+ * fusionnés à l'insertion. Sert à la recherche de créneaux libres: on saute directement
+ * d'un intervalle occupé au suivant au lieu de comparer le curseur à chaque activité.
+ */
+class CalendrierOccupe {
+
+    /** Valeur retournée quand aucun créneau ne convient */
+    static final int AUCUN = Integer.MIN_VALUE;
+
+    // debut -> fin des intervalles occupés (disjoints, non contigus)
+    private final TreeMap<Integer, Integer> occupes = new TreeMap<>();
+
+    /**
+     * Marque [debut, fin) comme occupé en fusionnant avec les intervalles qui le touchent, O(log n) amorti
+     */
+    void occuper(int debut, int fin) {
+        if (fin <= debut) return;
+        Map.Entry<Integer, Integer> precedent = occupes.floorEntry(debut);
+        if (precedent != null && precedent.getValue() >= debut) {
+            debut = precedent.getKey();
+            fin = Math.max(fin, precedent.getValue());
+            occupes.remove(precedent.getKey());
+        }
+        Map.Entry<Integer, Integer> suivant = occupes.ceilingEntry(debut);
+        while (suivant != null && suivant.getKey() <= fin) {
+            fin = Math.max(fin, suivant.getValue());
+            occupes.remove(suivant.getKey());
+            suivant = occupes.ceilingEntry(debut);
+        }
+        occupes.put(debut, fin);
+    }
+
+    /** Fin de l'intervalle occupé contenant la minute, ou la minute elle-même si elle est libre */
+    int finOccupation(int minute) {
+        Map.Entry<Integer, Integer> e = occupes.floorEntry(minute);
+        return e != null && e.getValue() > minute ? e.getValue() : minute;
+    }
+
+    /** Début du premier intervalle occupé commençant à la minute ou après, Integer.MAX_VALUE si aucun */
+    int debutOccupationSuivante(int minute) {
+        Integer debut = occupes.ceilingKey(minute);
+        return debut != null ? debut : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Premier début t >= curseur tel que [t, t + duree) soit libre dans le calendrier,
+     * respecte les disponibilités et se termine au plus tard à limite.
+     * @return le début trouvé, ou AUCUN
+     */
+    int prochainCreneau(int curseur, int duree, int limite, DisponibiliteCompilee disponibilite) {
+        int t = curseur;
+        while (t + duree <= limite) {
+            // Dans un intervalle occupé: sauter à sa fin
+            int apres = finOccupation(t);
+            if (apres != t) {
+                t = apres;
+                continue;
+            }
+            // Le prochain intervalle occupé commence avant la fin du créneau: sauter après lui
+            Map.Entry<Integer, Integer> suivant = occupes.higherEntry(t);
+            if (suivant != null && suivant.getKey() < t + duree) {
+                t = suivant.getValue();
+                continue;
+            }
+            // Contraintes: sauter après la dernière minute bloquée du créneau
+            int possible = disponibilite.prochainDebutPossible(t, t + duree);
+            if (possible == t) return t;
+            t = possible;
+        }
+        return AUCUN;
+    }
+}
@@ -0,0 +1,208 @@
+package com.planning.service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Une chaîne de recuit simulé: état courant, générateur aléatoire propre et meilleure solution.
+ * Une chaîne n'est jamais partagée entre threads pendant un palier.
+ */
+class ChaineRecuit {
+
+    /** Tirages d'un même type de mouvement avant d'abandonner l'itération (créneaux tous irréalisables) */
+    static final int TENTATIVES_MAX = 8;
+
+    private static final SuiviOptimisation.Mouvement[] MOUVEMENTS = SuiviOptimisation.Mouvement.values();
+
+    private final EvaluateurCout evaluateur;
+    private final CreneauxLibres libres;
+    private final SplittableRandom random;
+    private final SuiviOptimisation suivi;
+    private final int fenetreDebut;
+    private final int fenetreFin;
+
+    private double coutCourant;
+    private final int[] meilleursDebuts;
+    private final int[] meilleursFins;
+    private double meilleurCout;
+
+    // Compteurs par type de mouvement du palier en cours, reportés au suivi en fin de palier
+    private final long[] tires = new long[MOUVEMENTS.length];
+    private final long[] ecartes = new long[MOUVEMENTS.length];
+    private final long[] acceptesParType = new long[MOUVEMENTS.length];
+    private int dernierMouvement;
+    // Voisins réellement évalués pendant le dernier palier (hors tirages tous écartés)
+    private int evalues;
+
+    ChaineRecuit(ProblemePlanification probleme, SplittableRandom random, SuiviOptimisation suivi) {
+        this.evaluateur = probleme.creerEvaluateur();
+        this.libres = probleme.getLibres();
+        this.random = random;
+        this.suivi = suivi;
+        this.fenetreDebut = probleme.getFenetreDebut();
+        this.fenetreFin = probleme.getFenetreFin();
+        this.coutCourant = evaluateur.cout();
+        this.meilleursDebuts = new int[evaluateur.taille()];
+        this.meilleursFins = new int[evaluateur.taille()];
+        evaluateur.copierCreneaux(meilleursDebuts, meilleursFins);
+        this.meilleurCout = coutCourant;
+    }
+
+    /**
+     * Nombre de paliers d'un schéma de refroidissement géométrique
+     */
+    static int nombrePaliers(double temperatureInitiale, double temperatureMinimale, double tauxRefroidissement) {
+        int paliers = 0;
+        for (double t = temperatureInitiale; t > temperatureMinimale; t *= tauxRefroidissement) paliers++;
+        return paliers;
+    }
+
+    /**
+     * Déroule un schéma de refroidissement (interrompu en cas d'annulation).
+     * Avec un budget, la température ne dépasse jamais celle qu'impose la fraction de budget
+     * consommée: le refroidissement s'accélère et la chaîne s'arrête au plus tard à l'épuisement.
+     * Seuls les voisins évalués consomment le budget: la part réservée pour des tirages écartés
+     * est rendue en fin de palier.
+     */
+    void recuire(double temperatureInitiale, double temperatureMinimale, double tauxRefroidissement, int iterations,
+                 OptionsOptimisation.Refroidissement refroidissement) {
+        BudgetOptimisation budget = suivi.getBudget();
+        RefroidissementAdaptatif adaptatif = refroidissement == OptionsOptimisation.Refroidissement.ADAPTATIF
+            ? new RefroidissementAdaptatif(temperatureInitiale, temperatureMinimale, tauxRefroidissement)
+            : null;
+        double temperatureGeometrique = temperatureInitiale;
+        while (!suivi.estAnnule()) {
+            double temperatureSchema = adaptatif != null ? adaptatif.getTemperature() : temperatureGeometrique;
+            double temperature = Math.min(temperatureSchema,
+                budget.temperaturePlafond(temperatureInitiale, temperatureMinimale));
+            if (temperature <= temperatureMinimale) break;
+            int accordees = budget.reserver(iterations);
+            if (accordees == 0) break;
+
+            double meilleurAvant = meilleurCout;
+            int acceptes = palier(temperature, accordees);
+            budget.rendre(accordees - evalues);
+            boolean rechauffe = adaptatif != null && adaptatif.dernierPalierRechauffe();
+            suivi.palierTermine(temperature, evalues, acceptes, meilleurCout, rechauffe);
+
+            if (adaptatif != null) {
+                // Taux d'acceptation des voisins évalués (un palier sans voisin évalué est figé)
+                double taux = evalues > 0 ? acceptes / (double) evalues : 0.0;
+                adaptatif.palierTermine(taux, meilleurCout < meilleurAvant);
+            } else {
+                temperatureGeometrique *= tauxRefroidissement;
+            }
+        }
+    }
+
+    /**
+     * Effectue un palier d'itérations à température constante
+     * (getEvalues() donne ensuite le nombre de voisins réellement évalués)
+     * @return le nombre de voisins acceptés
+     */
+    int palier(double temperature, int iterations) {
+        int acceptes = 0;
+        evalues = 0;
+        for (int iter = 0; iter < iterations; iter++) {
+            // Appliquer un mouvement voisin (annulable) et obtenir son coût
+            double coutVoisin = genererVoisin();
+            if (evaluateur.aDesDeplacementsEnCours()) evalues++;
+
+            // Critère d'acceptation
+            double delta = coutVoisin - coutCourant;
+
+            if (delta < 0 || Math.exp(-delta / temperature) > random.nextDouble()) {
+                // Accepter la solution voisine (un tirage sans mouvement ne compte pas comme accepté)
+                if (evaluateur.aDesDeplacementsEnCours()) {
+                    acceptes++;
+                    acceptesParType[dernierMouvement]++;
+                }
+                evaluateur.valider();
+                coutCourant = coutVoisin;
+
+                // Mettre à jour la meilleure solution
+                if (coutCourant < meilleurCout) {
+                    evaluateur.copierCreneaux(meilleursDebuts, meilleursFins);
+                    meilleurCout = coutCourant;
+                }
+            } else {
+                evaluateur.annuler();
+            }
+        }
+        suivi.mouvementsTermines(tires, ecartes, acceptesParType);
+        Arrays.fill(tires, 0);
+        Arrays.fill(ecartes, 0);
+        Arrays.fill(acceptesParType, 0);
+        return acceptes;
+    }
+
+    /** Voisins évalués pendant le dernier palier, sans les itérations dont tous les tirages ont été écartés */
+    int getEvalues() { return evalues; }
+    double getCoutCourant() { return coutCourant; }
+    double getMeilleurCout() { return meilleurCout; }
+    int[] getMeilleursDebuts() { return meilleursDebuts; }
+    int[] getMeilleursFins() { return meilleursFins; }
+
+    /**
+     * Applique sur l'évaluateur un mouvement voisin de la solution courante.
+     * Les créneaux cibles sont tirés dans le temps libre compilé: un tirage irréalisable
+     * (contrainte, activité fixe, hors fenêtre) est écarté sans être évalué et retiré,
+     * au plus TENTATIVES_MAX fois.
+     * @return le coût de la solution voisine (le mouvement reste annulable)
+     */
+    private double genererVoisin() {
+        int taille = evaluateur.taille();
+        if (taille == 0) return evaluateur.cout();
+
+        // Choisir aléatoirement un type de perturbation
+        int type = random.nextInt(MOUVEMENTS.length);
+        if (type == SuiviOptimisation.Mouvement.ECHANGE.ordinal() && taille < 2) return evaluateur.cout();
+        dernierMouvement = type;
+
+        for (int tentative = 0; tentative < TENTATIVES_MAX; tentative++) {
+            tires[type]++;
+            switch (MOUVEMENTS[type]) {
+                case DECALAGE: { // Décaler une activité de ±15 min à ±2 h
+                    int idx = random.nextInt(taille);
+                    int decalage = (random.nextInt(8) + 1) * 15;
+                    if (random.nextBoolean()) decalage = -decalage;
+                    int nouveauDebut = evaluateur.getDebut(idx) + decalage;
+                    int duree = evaluateur.getFin(idx) - evaluateur.getDebut(idx);
+                    if (nouveauDebut > fenetreDebut && nouveauDebut < fenetreFin
+                            && libres.contient(nouveauDebut, nouveauDebut + duree)) {
+                        return evaluateur.deplacer(idx, nouveauDebut, nouveauDebut + duree);
+                    }
+                    break;
+                }
+                case ECHANGE: { // Échanger deux activités
+                    int idx1 = random.nextInt(taille);
+                    int idx2 = random.nextInt(taille);
+                    if (idx1 == idx2) break;
+                    int debut1 = evaluateur.getDebut(idx1);
+                    int debut2 = evaluateur.getDebut(idx2);
+                    int duree1 = evaluateur.getFin(idx1) - debut1;
+                    int duree2 = evaluateur.getFin(idx2) - debut2;
+                    if (libres.contient(debut2, debut2 + duree1) && libres.contient(debut1, debut1 + duree2)) {
+                        evaluateur.deplacer(idx1, debut2, debut2 + duree1);
+                        return evaluateur.deplacer(idx2, debut1, debut1 + duree2);
+                    }
+                    break;
+                }
+                default: { // Changer la durée d'une activité de ±15 à ±45 min
+                    int idx = random.nextInt(taille);
+                    int changement = (random.nextInt(3) + 1) * 15;
+                    if (random.nextBoolean()) changement = -changement;
+                    int debut = evaluateur.getDebut(idx);
+                    int nouvelleFin = evaluateur.getFin(idx) + changement;
+                    if (nouvelleFin > debut && nouvelleFin < fenetreFin && libres.contient(debut, nouvelleFin)) {
+                        return evaluateur.deplacer(idx, debut, nouvelleFin);
+                    }
+                    break;
+                }
+            }
+            ecartes[type]++;
+        }
+
+        return evaluateur.cout();
+    }
+}
@@ -0,0 +1,23 @@
+package com.planning.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Temps cumulé par terme du coût dans l'évaluation incrémentale, partagé par toutes les chaînes
+ * d'une exécution (LongAdder: pas de contention entre chaînes parallèles). N'existe que si
+ * l'instrumentation est demandée: chaque déplacement coûte alors quelques appels à System.nanoTime.
+ */
+final class ChronometreTermes {
+
+    static final int CONFLITS = SuiviOptimisation.Terme.CONFLITS.ordinal();
+    static final int GAPS = SuiviOptimisation.Terme.GAPS.ordinal();
+    static final int CONTRAINTES = SuiviOptimisation.Terme.CONTRAINTES.ordinal();
+    static final int PRIORITES = SuiviOptimisation.Terme.PRIORITES.ordinal();
+    static final int FATIGUE = SuiviOptimisation.Terme.FATIGUE.ordinal();
+
+    private final LongAdder[] nanos = {new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder()};
+
+    void ajouter(int terme, long duree) { nanos[terme].add(duree); }
+
+    long getNanos(int terme) { return nanos[terme].sum(); }
+}
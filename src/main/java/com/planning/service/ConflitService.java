@@ -6,13 +6,14 @@ import com.planning.dao.impl.ActiviteDAOImpl;
 import com.planning.dao.impl.ContrainteDAOImpl;
 import com.planning.model.*;
 
+import com.planning.util.MinutesEpoch;
+
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.DayOfWeek;
-import java.time.format.TextStyle;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
+import java.util.PriorityQueue;
 
 public class ConflitService {
     private final ActiviteDAO activiteDAO;
@@ -32,56 +33,76 @@ public class ConflitService {
         // Charger toutes les activités de l'utilisateur dans la période
         List<Activite> activites = activiteDAO.findByUserAndDateRange(utilisateurId, dateDebut, dateFin);
         
-        // Charger les contraintes
-        List<ContrainteHoraire> contraintesHoraires = contrainteDAO.findHoraireByUser(utilisateurId);
-        List<ContraintePersonnelle> contraintesPersonnelles = contrainteDAO.findPersonnelleByUser(utilisateurId);
+        // Charger les contraintes (compilées, mises en cache par utilisateur)
+        DisponibiliteCompilee disponibilite = DisponibiliteCompilee.pour(utilisateurId, contrainteDAO);
         
         // 1. Détecter les chevauchements entre activités
         conflits.addAll(detecterChevauchements(activites));
         
         // 2. Vérifier les violations de contraintes horaires
-        conflits.addAll(verifierContraintesHoraires(activites, contraintesHoraires));
+        conflits.addAll(verifierContraintesHoraires(activites, disponibilite));
         
         // 3. Vérifier les violations de contraintes personnelles
-        conflits.addAll(verifierContraintesPersonnelles(activites, contraintesPersonnelles));
+        conflits.addAll(verifierContraintesPersonnelles(activites, disponibilite));
         
         return conflits;
     }
 
     /**
-     * Détecte les chevauchements entre activités
+     * Détecte les chevauchements entre activités par balayage: les activités sont parcourues
+     * par début croissant, avec l'ensemble des activités en cours ordonné par fin. Chaque
+     * activité n'est comparée qu'à celles encore en cours, soit O(n log n + k) pour k conflits.
+     * Les conflits sont rendus dans l'ordre des paires (i, j) de la liste, comme une
+     * comparaison de toutes les paires.
      */
     private List<Conflit> detecterChevauchements(List<Activite> activites) {
-        List<Conflit> conflits = new ArrayList<>();
-        
+        List<Integer> parDebut = new ArrayList<>(activites.size());
         for (int i = 0; i < activites.size(); i++) {
-            Activite a1 = activites.get(i);
-            if (a1.getDebut() == null || a1.getFin() == null) continue;
-            
-            for (int j = i + 1; j < activites.size(); j++) {
-                Activite a2 = activites.get(j);
-                if (a2.getDebut() == null || a2.getFin() == null) continue;
-                
-                // Vérifier si les activités se chevauchent
-                if (seChevauchent(a1.getDebut(), a1.getFin(), 
-                                  a2.getDebut(), a2.getFin())) {
-                    Conflit conflit = new Conflit();
-                    conflit.setType("CHEVAUCHEMENT");
-                    conflit.setSeverite("CRITIQUE");
-                    conflit.setActivite1Id(a1.getId());
-                    conflit.setActivite2Id(a2.getId());
-                    conflit.setActivite1Titre(a1.getTitre());
-                    conflit.setActivite2Titre(a2.getTitre());
-                    conflit.setDateDebut(a1.getDebut());
-                    conflit.setDateFin(a1.getFin());
-                    conflit.setDescription(String.format(
-                        "Les activités '%s' et '%s' se chevauchent entre %s et %s",
-                        a1.getTitre(), a2.getTitre(),
-                        formatDateTime(a1.getDebut()), formatDateTime(a1.getFin())
-                    ));
-                    conflits.add(conflit);
-                }
+            Activite a = activites.get(i);
+            if (a.getDebut() != null && a.getFin() != null) parDebut.add(i);
+        }
+        // Déjà trié par le DAO (ORDER BY date_debut): le tri stable est alors linéaire
+        parDebut.sort((i, j) -> activites.get(i).getDebut().compareTo(activites.get(j).getDebut()));
+        
+        PriorityQueue<Integer> enCours = new PriorityQueue<>(
+            (i, j) -> activites.get(i).getFin().compareTo(activites.get(j).getFin()));
+        long[] paires = new long[16];
+        int nbPaires = 0;
+        for (int courant : parDebut) {
+            Activite a = activites.get(courant);
+            // Retirer les activités terminées au début de la courante
+            while (!enCours.isEmpty() && !activites.get(enCours.peek()).getFin().isAfter(a.getDebut())) {
+                enCours.poll();
+            }
+            // Les activités restantes ont commencé avant et finissent après le début de la courante
+            for (int autre : enCours) {
+                if (!activites.get(autre).getDebut().isBefore(a.getFin())) continue; // courante de durée nulle
+                if (nbPaires == paires.length) paires = Arrays.copyOf(paires, 2 * nbPaires);
+                paires[nbPaires++] = ((long) Math.min(autre, courant) << 32) | Math.max(autre, courant);
             }
+            if (a.getDebut().isBefore(a.getFin())) enCours.add(courant);
+        }
+        Arrays.sort(paires, 0, nbPaires);
+        
+        List<Conflit> conflits = new ArrayList<>(nbPaires);
+        for (int p = 0; p < nbPaires; p++) {
+            Activite a1 = activites.get((int) (paires[p] >>> 32));
+            Activite a2 = activites.get((int) paires[p]);
+            Conflit conflit = new Conflit();
+            conflit.setType("CHEVAUCHEMENT");
+            conflit.setSeverite("CRITIQUE");
+            conflit.setActivite1Id(a1.getId());
+            conflit.setActivite2Id(a2.getId());
+            conflit.setActivite1Titre(a1.getTitre());
+            conflit.setActivite2Titre(a2.getTitre());
+            conflit.setDateDebut(a1.getDebut());
+            conflit.setDateFin(a1.getFin());
+            conflit.setDescriptionDifferee(() -> String.format(
+                "Les activités '%s' et '%s' se chevauchent entre %s et %s",
+                a1.getTitre(), a2.getTitre(),
+                formatDateTime(a1.getDebut()), formatDateTime(a1.getFin())
+            ));
+            conflits.add(conflit);
         }
         
         return conflits;
@@ -91,42 +112,32 @@ public class ConflitService {
      * Vérifie les violations de contraintes horaires récurrentes
      */
     private List<Conflit> verifierContraintesHoraires(List<Activite> activites, 
-                                                       List<ContrainteHoraire> contraintes) {
+                                                       DisponibiliteCompilee disponibilite) {
         List<Conflit> conflits = new ArrayList<>();
         
         for (Activite activite : activites) {
             if (activite.getDebut() == null || activite.getFin() == null) continue;
             
-            // Extraire le jour de la semaine et les heures
-            DayOfWeek jourActivite = activite.getDebut().getDayOfWeek();
-            String jourStr = jourActivite.getDisplayName(TextStyle.FULL, Locale.FRENCH).toUpperCase();
-            LocalTime heureDebutActivite = activite.getDebut().toLocalTime();
-            LocalTime heureFinActivite = activite.getFin().toLocalTime();
+            int debut = MinutesEpoch.de(activite.getDebut());
+            int fin = MinutesEpoch.de(activite.getFin());
             
-            // Vérifier chaque contrainte horaire
-            for (ContrainteHoraire contrainte : contraintes) {
-                if (!contrainte.getJourSemaine().equals(jourStr)) continue;
-                if (contrainte.getHeureDebut() == null || contrainte.getHeureFin() == null) continue;
-                
-                // Si c'est une contrainte INDISPONIBLE et l'activité tombe dedans
-                if ("INDISPONIBLE".equals(contrainte.getTypeContrainte())) {
-                    if (seChevauchenTime(heureDebutActivite, heureFinActivite,
-                                         contrainte.getHeureDebut(), contrainte.getHeureFin())) {
-                        Conflit conflit = new Conflit();
-                        conflit.setType("CONTRAINTE_HORAIRE");
-                        conflit.setSeverite("MAJEURE");
-                        conflit.setActivite1Id(activite.getId());
-                        conflit.setActivite1Titre(activite.getTitre());
-                        conflit.setDateDebut(activite.getDebut());
-                        conflit.setDateFin(activite.getFin());
-                        conflit.setDescription(String.format(
-                            "L'activité '%s' viole une contrainte d'indisponibilité le %s entre %s et %s",
-                            activite.getTitre(), jourStr,
-                            contrainte.getHeureDebut(), contrainte.getHeureFin()
-                        ));
-                        conflits.add(conflit);
-                    }
-                }
+            // Test rapide sur le bitmap hebdomadaire; les contraintes en cause ne sont recherchées qu'en cas de violation
+            if (!disponibilite.violeHoraire(debut, fin)) continue;
+            
+            for (ContrainteHoraire contrainte : disponibilite.contraintesHorairesViolees(debut, fin)) {
+                Conflit conflit = new Conflit();
+                conflit.setType("CONTRAINTE_HORAIRE");
+                conflit.setSeverite("MAJEURE");
+                conflit.setActivite1Id(activite.getId());
+                conflit.setActivite1Titre(activite.getTitre());
+                conflit.setDateDebut(activite.getDebut());
+                conflit.setDateFin(activite.getFin());
+                conflit.setDescriptionDifferee(() -> String.format(
+                    "L'activité '%s' viole une contrainte d'indisponibilité le %s entre %s et %s",
+                    activite.getTitre(), contrainte.getJourSemaine(),
+                    contrainte.getHeureDebut(), contrainte.getHeureFin()
+                ));
+                conflits.add(conflit);
             }
         }
         
@@ -137,13 +148,16 @@ public class ConflitService {
      * Vérifie les violations de contraintes personnelles (périodes bloquées)
      */
     private List<Conflit> verifierContraintesPersonnelles(List<Activite> activites,
-                                                           List<ContraintePersonnelle> contraintes) {
+                                                           DisponibiliteCompilee disponibilite) {
         List<Conflit> conflits = new ArrayList<>();
         
         for (Activite activite : activites) {
             if (activite.getDebut() == null || activite.getFin() == null) continue;
             
-            for (ContraintePersonnelle contrainte : contraintes) {
+            // Test rapide sur les périodes fusionnées avant de rechercher les contraintes en cause
+            if (!disponibilite.violePersonnelle(MinutesEpoch.de(activite.getDebut()), MinutesEpoch.de(activite.getFin()))) continue;
+            
+            for (ContraintePersonnelle contrainte : disponibilite.getContraintesPersonnelles()) {
                 if (contrainte.getDateDebut() == null || contrainte.getDateFin() == null) continue;
                 
                 // Vérifier si l'activité chevauche la période bloquée
@@ -156,7 +170,7 @@ public class ConflitService {
                     conflit.setActivite1Titre(activite.getTitre());
                     conflit.setDateDebut(activite.getDebut());
                     conflit.setDateFin(activite.getFin());
-                    conflit.setDescription(String.format(
+                    conflit.setDescriptionDifferee(() -> String.format(
                         "L'activité '%s' tombe pendant une période bloquée: %s (%s - %s)",
                         activite.getTitre(),
                         contrainte.getMotif() != null ? contrainte.getMotif() : "Non spécifié",
@@ -179,14 +193,6 @@ public class ConflitService {
         return debut1.isBefore(fin2) && debut2.isBefore(fin1);
     }
 
-    /**
-     * Vérifie si deux plages horaires (LocalTime) se chevauchent
-     */
-    private boolean seChevauchenTime(LocalTime debut1, LocalTime fin1,
-                                      LocalTime debut2, LocalTime fin2) {
-        return debut1.isBefore(fin2) && debut2.isBefore(fin1);
-    }
-
     /**
      * Valide qu'une activité respecte les contraintes avant sa création/modification
      */
@@ -202,41 +208,26 @@ public class ConflitService {
             erreurs.add("La date de début doit être antérieure à la date de fin");
         }
         
-        // Charger toutes les activités existantes (sauf celle en cours d'édition)
-        List<Activite> activitesExistantes = activiteDAO.findAllByUser(utilisateurId);
-        activitesExistantes.removeIf(a -> a.getId() == activite.getId());
-        
-        // Vérifier les chevauchements
-        for (Activite existante : activitesExistantes) {
-            if (existante.getDebut() != null && existante.getFin() != null) {
-                if (seChevauchent(activite.getDebut(), activite.getFin(),
-                                  existante.getDebut(), existante.getFin())) {
-                    erreurs.add(String.format("Conflit avec l'activité existante '%s'", existante.getTitre()));
-                }
-            }
+        // Vérifier les chevauchements (index d'intervalles de l'utilisateur, sauf l'activité en cours d'édition)
+        for (Activite existante : activiteDAO.findByUserAndDateRange(utilisateurId, activite.getDebut(), activite.getFin())) {
+            if (existante.getId() == activite.getId()) continue;
+            erreurs.add(String.format("Conflit avec l'activité existante '%s'", existante.getTitre()));
         }
         
         // Vérifier les contraintes horaires
-        List<ContrainteHoraire> contraintesHoraires = contrainteDAO.findHoraireByUser(utilisateurId);
-        DayOfWeek jour = activite.getDebut().getDayOfWeek();
-        String jourStr = jour.getDisplayName(TextStyle.FULL, Locale.FRENCH).toUpperCase();
-        LocalTime heureDebut = activite.getDebut().toLocalTime();
-        LocalTime heureFin = activite.getFin().toLocalTime();
+        DisponibiliteCompilee disponibilite = DisponibiliteCompilee.pour(utilisateurId, contrainteDAO);
+        int debut = MinutesEpoch.de(activite.getDebut());
+        int fin = MinutesEpoch.de(activite.getFin());
         
-        for (ContrainteHoraire contrainte : contraintesHoraires) {
-            if (contrainte.getJourSemaine().equals(jourStr) && 
-                "INDISPONIBLE".equals(contrainte.getTypeContrainte()) &&
-                contrainte.getHeureDebut() != null && contrainte.getHeureFin() != null) {
-                if (seChevauchenTime(heureDebut, heureFin, 
-                                     contrainte.getHeureDebut(), contrainte.getHeureFin())) {
-                    erreurs.add(String.format("Vous êtes indisponible le %s entre %s et %s",
-                        jourStr, contrainte.getHeureDebut(), contrainte.getHeureFin()));
-                }
-            }
+        for (ContrainteHoraire contrainte : disponibilite.contraintesHorairesViolees(debut, fin)) {
+            erreurs.add(String.format("Vous êtes indisponible le %s entre %s et %s",
+                contrainte.getJourSemaine(), contrainte.getHeureDebut(), contrainte.getHeureFin()));
         }
         
         // Vérifier les contraintes personnelles
-        List<ContraintePersonnelle> contraintesPersonnelles = contrainteDAO.findPersonnelleByUser(utilisateurId);
+        List<ContraintePersonnelle> contraintesPersonnelles = disponibilite.violePersonnelle(debut, fin)
+            ? disponibilite.getContraintesPersonnelles()
+            : Collections.<ContraintePersonnelle>emptyList();
         for (ContraintePersonnelle contrainte : contraintesPersonnelles) {
             if (contrainte.getDateDebut() != null && contrainte.getDateFin() != null) {
                 if (seChevauchent(activite.getDebut(), activite.getFin(),
@@ -0,0 +1,80 @@
+package com.planning.service;
+
+import java.util.Arrays;
+
+/**
+ * Temps libre compilé d'une fenêtre d'optimisation: intervalles disjoints triés (minutes depuis
+ * l'epoch) hors contraintes horaires, périodes personnelles et activités fixes.
+ * Permet aux générateurs de voisins de n'évaluer que des créneaux réalisables:
+ * "[debut, fin) tient-il dans un intervalle libre ?" se résout par recherche dichotomique.
+ */
+class CreneauxLibres {
+
+    private final int[] debuts;
+    private final int[] fins;
+
+    private CreneauxLibres(int[] debuts, int[] fins) {
+        this.debuts = debuts;
+        this.fins = fins;
+    }
+
+    /** Fenêtre entièrement libre (problèmes construits sans disponibilités) */
+    static CreneauxLibres fenetre(int debut, int fin) {
+        return fin > debut ? new CreneauxLibres(new int[]{debut}, new int[]{fin}) : new CreneauxLibres(new int[0], new int[0]);
+    }
+
+    /**
+     * Parcourt la fenêtre [debut, fin) d'intervalle en intervalle (une fois par exécution): chaque
+     * plage libre va de la première minute libre à la première minute bloquée suivante (bitmap
+     * horaire, période personnelle ou activité fixe), en O(intervalles) recherches
+     */
+    static CreneauxLibres calculer(DisponibiliteCompilee disponibilite, int[] fixesDebut, int[] fixesFin,
+                                   int debut, int fin) {
+        CalendrierOccupe occupe = new CalendrierOccupe();
+        for (int k = 0; k < fixesDebut.length; k++) occupe.occuper(fixesDebut[k], fixesFin[k]);
+
+        int[] libresDebut = new int[16];
+        int[] libresFin = new int[16];
+        int m = 0;
+        int t = prochaineMinuteLibre(disponibilite, occupe, debut);
+        while (t < fin) {
+            int finLibre = Math.min(occupe.debutOccupationSuivante(t), disponibilite.premiereMinuteBloquee(t, fin));
+            if (m == libresDebut.length) {
+                libresDebut = Arrays.copyOf(libresDebut, 2 * m);
+                libresFin = Arrays.copyOf(libresFin, 2 * m);
+            }
+            libresDebut[m] = t;
+            libresFin[m] = finLibre;
+            m++;
+            t = prochaineMinuteLibre(disponibilite, occupe, finLibre);
+        }
+        return new CreneauxLibres(Arrays.copyOf(libresDebut, m), Arrays.copyOf(libresFin, m));
+    }
+
+    /** Première minute >= minute libre à la fois dans le calendrier et dans les disponibilités */
+    private static int prochaineMinuteLibre(DisponibiliteCompilee disponibilite, CalendrierOccupe occupe, int minute) {
+        int t = minute;
+        while (true) {
+            int apres = occupe.finOccupation(t);
+            int libre = disponibilite.premiereMinuteLibre(apres);
+            if (libre == apres && apres == t) return t;
+            if (libre == Integer.MAX_VALUE) return libre;
+            t = libre;
+        }
+    }
+
+    /** [debut, fin) tient-il entièrement dans un intervalle libre ? O(log m) */
+    boolean contient(int debut, int fin) {
+        if (fin <= debut) return false;
+        // Dernier intervalle commençant au plus tard à debut
+        int lo = 0;
+        int hi = debuts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (debuts[mid] <= debut) lo = mid + 1; else hi = mid;
+        }
+        return lo > 0 && fins[lo - 1] >= fin;
+    }
+
+    int nombreIntervalles() { return debuts.length; }
+}
@@ -0,0 +1,446 @@
+package com.planning.service;
+
+import com.planning.dao.ContrainteDAO;
+import com.planning.model.ContrainteHoraire;
+import com.planning.model.ContraintePersonnelle;
+import com.planning.util.CacheLRU;
+import com.planning.util.MinutesEpoch;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * Disponibilités compilées d'un utilisateur:
+ *   - contraintes horaires INDISPONIBLE sous forme de bitmap de 10 080 bits (une minute de la semaine par bit)
+ *   - contraintes personnelles fusionnées en intervalles triés (minutes depuis l'epoch)
+ *
+ * "[debut, fin) est-il autorisé ?" se résout en quelques opérations sur des mots de 64 bits
+ * et une recherche dichotomique, sans conversion de jour ni comparaison de chaînes.
+ * Les contraintes violées (messages) se retrouvent par recherche dichotomique dans les
+ * plages du jour concerné, rangées par jour de la semaine.
+ * Les structures sont mises en cache par utilisateur et reconstruites uniquement
+ * quand la version des contraintes (ContrainteDAO#getVersion) change.
+ */
+class DisponibiliteCompilee {
+
+    private static final int CAPACITE_CACHE = 1000;
+    private static final CacheLRU<Integer, DisponibiliteCompilee> CACHE = new CacheLRU<>(CAPACITE_CACHE);
+
+    private final long version;
+    private final List<ContrainteHoraire> contraintesHoraires;
+    private final List<ContraintePersonnelle> contraintesPersonnelles;
+
+    private final long[] indisponible = new long[(MinutesEpoch.MINUTES_PAR_SEMAINE + 63) / 64];
+    private boolean aucuneIndisponibilite = true;
+    private final int minutesIndisponiblesSemaine;
+
+    // Plages INDISPONIBLE en minutes de la semaine, par jour de début (pour retrouver les contraintes violées)
+    private final EnumMap<DayOfWeek, PlagesJour> plagesParJour = new EnumMap<>(DayOfWeek.class);
+    private final ContrainteHoraire[] plagesContrainte;
+
+    // Périodes personnelles fusionnées, triées et disjointes
+    private final int[] periodesDebut;
+    private final int[] periodesFin;
+
+    /**
+     * Retourne les disponibilités compilées de l'utilisateur, depuis le cache si ses contraintes n'ont pas changé
+     */
+    static DisponibiliteCompilee pour(int utilisateurId, ContrainteDAO contrainteDAO) {
+        // Lire la version avant le chargement: une écriture concurrente forcera une reconstruction
+        return pour(utilisateurId, contrainteDAO.getVersion(utilisateurId), contrainteDAO);
+    }
+
+    /**
+     * Idem pour une version des contraintes déjà lue par l'appelant, avant le chargement
+     */
+    static DisponibiliteCompilee pour(int utilisateurId, long version, ContrainteDAO contrainteDAO) {
+        DisponibiliteCompilee compilee = CACHE.get(utilisateurId);
+        if (compilee != null && compilee.version == version) {
+            return compilee;
+        }
+        compilee = new DisponibiliteCompilee(version,
+            contrainteDAO.findHoraireByUser(utilisateurId),
+            contrainteDAO.findPersonnelleByUser(utilisateurId));
+        CACHE.put(utilisateurId, compilee);
+        return compilee;
+    }
+
+    DisponibiliteCompilee(long version,
+                          List<ContrainteHoraire> contraintesHoraires,
+                          List<ContraintePersonnelle> contraintesPersonnelles) {
+        this.version = version;
+        this.contraintesHoraires = Collections.unmodifiableList(new ArrayList<>(contraintesHoraires));
+        this.contraintesPersonnelles = Collections.unmodifiableList(new ArrayList<>(contraintesPersonnelles));
+
+        // 1. Contraintes horaires -> bitmap hebdomadaire
+        List<ContrainteHoraire> retenues = new ArrayList<>();
+        for (ContrainteHoraire c : contraintesHoraires) {
+            if (!"INDISPONIBLE".equals(c.getTypeContrainte())) continue;
+            if (c.getHeureDebut() == null || c.getHeureFin() == null) continue;
+            if (c.getJour() == null) continue;
+            // Bornes égales: plage vide, comme dans la comparaison d'heures d'origine
+            if (duree(c) == 0) continue;
+            retenues.add(c);
+        }
+        int[] plagesDebut = new int[retenues.size()];
+        int[] plagesFin = new int[retenues.size()];
+        plagesContrainte = new ContrainteHoraire[retenues.size()];
+        for (int k = 0; k < retenues.size(); k++) {
+            ContrainteHoraire c = retenues.get(k);
+            int debut = MinutesEpoch.debutJour(c.getJour()) + minuteDuJour(c.getHeureDebut(), false);
+            int duree = duree(c);
+            plagesDebut[k] = debut;
+            plagesFin[k] = debut + duree;
+            plagesContrainte[k] = c;
+            marquer(debut, debut + duree);
+        }
+        for (DayOfWeek jour : DayOfWeek.values()) {
+            PlagesJour plages = PlagesJour.de(jour, plagesContrainte, plagesDebut, plagesFin);
+            if (plages != null) plagesParJour.put(jour, plages);
+        }
+        int total = 0;
+        for (long mot : indisponible) total += Long.bitCount(mot);
+        minutesIndisponiblesSemaine = total;
+
+        // 2. Contraintes personnelles -> intervalles fusionnés
+        List<int[]> periodes = new ArrayList<>();
+        for (ContraintePersonnelle c : contraintesPersonnelles) {
+            if (c.getDateDebut() == null || c.getDateFin() == null) continue;
+            int debut = MinutesEpoch.de(c.getDateDebut());
+            int fin = MinutesEpoch.de(c.getDateFin());
+            if (debut < fin) periodes.add(new int[]{debut, fin});
+        }
+        periodes.sort((a, b) -> Integer.compare(a[0], b[0]));
+        int[] debuts = new int[periodes.size()];
+        int[] fins = new int[periodes.size()];
+        int m = 0;
+        for (int[] p : periodes) {
+            if (m > 0 && p[0] <= fins[m - 1]) {
+                fins[m - 1] = Math.max(fins[m - 1], p[1]);
+            } else {
+                debuts[m] = p[0];
+                fins[m] = p[1];
+                m++;
+            }
+        }
+        periodesDebut = Arrays.copyOf(debuts, m);
+        periodesFin = Arrays.copyOf(fins, m);
+    }
+
+    List<ContrainteHoraire> getContraintesHoraires() { return contraintesHoraires; }
+    List<ContraintePersonnelle> getContraintesPersonnelles() { return contraintesPersonnelles; }
+
+    /** Nombre de violations (0..2) du créneau [debut, fin): horaire et/ou personnelle */
+    int violations(int debut, int fin) {
+        int v = 0;
+        if (violeHoraire(debut, fin)) v++;
+        if (violePersonnelle(debut, fin)) v++;
+        return v;
+    }
+
+    /**
+     * Part approximative (0 à 1) de [debut, fin) rendue indisponible par les contraintes:
+     * part hebdomadaire des plages horaires + périodes personnelles recouvrant la fenêtre
+     */
+    double tauxIndisponibilite(int debut, int fin) {
+        if (fin <= debut) return 0.0;
+        double taux = minutesIndisponiblesSemaine / (double) MinutesEpoch.MINUTES_PAR_SEMAINE;
+        long personnelles = 0;
+        for (int k = premierePeriodeFinissantApres(debut); k < periodesDebut.length && periodesDebut[k] < fin; k++) {
+            personnelles += Math.min(fin, periodesFin[k]) - Math.max(debut, periodesDebut[k]);
+        }
+        return Math.min(1.0, taux + personnelles / (double) (fin - debut));
+    }
+
+    boolean estLibre(int debut, int fin) {
+        return !violeHoraire(debut, fin) && !violePersonnelle(debut, fin);
+    }
+
+    /** Le créneau [debut, fin) (minutes epoch) touche-t-il une plage INDISPONIBLE ? */
+    boolean violeHoraire(int debut, int fin) {
+        if (aucuneIndisponibilite || fin <= debut) return false;
+        if (fin - debut >= MinutesEpoch.MINUTES_PAR_SEMAINE) return true;
+        int s = MinutesEpoch.minuteDeSemaine(debut);
+        int e = s + (fin - debut);
+        if (e <= MinutesEpoch.MINUTES_PAR_SEMAINE) return intersecte(s, e);
+        return intersecte(s, MinutesEpoch.MINUTES_PAR_SEMAINE) || intersecte(0, e - MinutesEpoch.MINUTES_PAR_SEMAINE);
+    }
+
+    /** Le créneau [debut, fin) (minutes epoch) chevauche-t-il une période personnelle bloquée ? */
+    boolean violePersonnelle(int debut, int fin) {
+        int k = premierePeriodeFinissantApres(debut);
+        return k < periodesDebut.length && periodesDebut[k] < fin && debut < fin;
+    }
+
+    /**
+     * Plus petit début possible pour un créneau libre de même durée: debut lui-même s'il est libre,
+     * sinon la minute qui suit la dernière minute bloquée de [debut, fin) (horaire ou personnelle).
+     * Aucun début entre les deux ne peut convenir, ce qui permet de sauter directement.
+     */
+    int prochainDebutPossible(int debut, int fin) {
+        if (fin <= debut) return debut;
+        int possible = debut;
+
+        if (!aucuneIndisponibilite) {
+            if (fin - debut >= MinutesEpoch.MINUTES_PAR_SEMAINE) {
+                // Un créneau d'une semaine ou plus rencontre forcément une indisponibilité
+                possible = fin;
+            } else {
+                int s = MinutesEpoch.minuteDeSemaine(debut);
+                int e = s + (fin - debut);
+                int dernier = -1;
+                if (e > MinutesEpoch.MINUTES_PAR_SEMAINE) {
+                    // Partie après le bouclage (plus tardive) d'abord
+                    int b = dernierBit(0, e - MinutesEpoch.MINUTES_PAR_SEMAINE);
+                    if (b >= 0) dernier = debut + (MinutesEpoch.MINUTES_PAR_SEMAINE - s) + b;
+                    else {
+                        b = dernierBit(s, MinutesEpoch.MINUTES_PAR_SEMAINE);
+                        if (b >= 0) dernier = debut + (b - s);
+                    }
+                } else {
+                    int b = dernierBit(s, e);
+                    if (b >= 0) dernier = debut + (b - s);
+                }
+                if (dernier >= 0) possible = Math.max(possible, dernier + 1);
+            }
+        }
+
+        // Dernière période personnelle chevauchant [debut, fin)
+        int k = premierePeriodeFinissantApres(debut);
+        int dernierePeriode = -1;
+        while (k < periodesDebut.length && periodesDebut[k] < fin) {
+            dernierePeriode = k;
+            k++;
+        }
+        if (dernierePeriode >= 0) possible = Math.max(possible, periodesFin[dernierePeriode]);
+
+        return possible;
+    }
+
+    /**
+     * Première minute >= minute qui n'est bloquée ni par une plage horaire ni par une période
+     * personnelle, Integer.MAX_VALUE si toute la semaine est indisponible. Saute plage par plage
+     * (mots du bitmap, fins de périodes), sans parcourir les minutes bloquées une à une.
+     */
+    int premiereMinuteLibre(int minute) {
+        int t = minute;
+        while (true) {
+            int k = premierePeriodeFinissantApres(t);
+            if (k < periodesDebut.length && periodesDebut[k] <= t) {
+                t = periodesFin[k];
+                continue;
+            }
+            if (aucuneIndisponibilite) return t;
+            int s = MinutesEpoch.minuteDeSemaine(t);
+            int z = premierBit(s, MinutesEpoch.MINUTES_PAR_SEMAINE, false);
+            int libre;
+            if (z >= 0) {
+                libre = t + (z - s);
+            } else {
+                z = premierBit(0, s, false);
+                if (z < 0) return Integer.MAX_VALUE;
+                libre = t + (MinutesEpoch.MINUTES_PAR_SEMAINE - s) + z;
+            }
+            if (libre == t) return t;
+            t = libre;
+        }
+    }
+
+    /**
+     * Première minute de [minute, limite) bloquée par une plage horaire ou une période
+     * personnelle, limite si aucune: fin de la plage libre qui commence à minute
+     */
+    int premiereMinuteBloquee(int minute, int limite) {
+        int bloquee = limite;
+        if (!aucuneIndisponibilite && minute < limite) {
+            int s = MinutesEpoch.minuteDeSemaine(minute);
+            int b = premierBit(s, MinutesEpoch.MINUTES_PAR_SEMAINE, true);
+            if (b >= 0) {
+                bloquee = Math.min(bloquee, minute + (b - s));
+            } else {
+                b = premierBit(0, s, true);
+                if (b >= 0) bloquee = Math.min(bloquee, minute + (MinutesEpoch.MINUTES_PAR_SEMAINE - s) + b);
+            }
+        }
+        int k = premierePeriodeFinissantApres(minute);
+        if (k < periodesDebut.length) bloquee = Math.min(bloquee, Math.max(minute, periodesDebut[k]));
+        return bloquee;
+    }
+
+    /**
+     * Contraintes horaires INDISPONIBLE touchées par [debut, fin) (pour les messages)
+     */
+    List<ContrainteHoraire> contraintesHorairesViolees(int debut, int fin) {
+        List<ContrainteHoraire> out = new ArrayList<>();
+        if (!violeHoraire(debut, fin)) return out;
+        int s = MinutesEpoch.minuteDeSemaine(debut);
+        int e = s + Math.min(fin - debut, MinutesEpoch.MINUTES_PAR_SEMAINE);
+        List<Integer> rangs = new ArrayList<>();
+        // Le créneau vu depuis la semaine des plages, et ses translations d'une semaine (bouclage dimanche -> lundi)
+        for (int w = -1; w <= 1; w++) {
+            int d = s - w * MinutesEpoch.MINUTES_PAR_SEMAINE;
+            int f = e - w * MinutesEpoch.MINUTES_PAR_SEMAINE;
+            // Une plage dure au plus un jour: seuls le jour précédent d et les jours touchés peuvent intersecter
+            int premier = Math.max(0, Math.floorDiv(d, MinutesEpoch.MINUTES_PAR_JOUR) - 1);
+            int dernier = Math.min(6, Math.floorDiv(f - 1, MinutesEpoch.MINUTES_PAR_JOUR));
+            for (int j = premier; j <= dernier; j++) {
+                PlagesJour plages = plagesParJour.get(DayOfWeek.of(j + 1));
+                if (plages != null) plages.chercher(d, f, rangs);
+            }
+        }
+        // Ordre de chargement des contraintes, chacune une seule fois
+        Collections.sort(rangs);
+        int precedent = -1;
+        for (int k : rangs) {
+            if (k != precedent) out.add(plagesContrainte[k]);
+            precedent = k;
+        }
+        return out;
+    }
+
+    /**
+     * Plages INDISPONIBLE commençant un même jour, triées par début (minutes de la semaine),
+     * avec leur rang dans plagesContrainte
+     */
+    private static final class PlagesJour {
+        private final int[] debuts;
+        private final int[] fins;
+        private final int[] rangs;
+        private final int dureeMax;
+
+        private PlagesJour(int[] debuts, int[] fins, int[] rangs, int dureeMax) {
+            this.debuts = debuts;
+            this.fins = fins;
+            this.rangs = rangs;
+            this.dureeMax = dureeMax;
+        }
+
+        /** Plages des contraintes du jour donné, null s'il n'y en a aucune */
+        static PlagesJour de(DayOfWeek jour, ContrainteHoraire[] contraintes, int[] debuts, int[] fins) {
+            List<Integer> rangs = new ArrayList<>();
+            for (int k = 0; k < contraintes.length; k++) {
+                if (contraintes[k].getJour() == jour) rangs.add(k);
+            }
+            if (rangs.isEmpty()) return null;
+            rangs.sort((a, b) -> debuts[a] != debuts[b] ? Integer.compare(debuts[a], debuts[b]) : Integer.compare(a, b));
+            int n = rangs.size();
+            PlagesJour plages = new PlagesJour(new int[n], new int[n], new int[n], maxDuree(rangs, debuts, fins));
+            for (int i = 0; i < n; i++) {
+                int k = rangs.get(i);
+                plages.debuts[i] = debuts[k];
+                plages.fins[i] = fins[k];
+                plages.rangs[i] = k;
+            }
+            return plages;
+        }
+
+        private static int maxDuree(List<Integer> rangs, int[] debuts, int[] fins) {
+            int max = 0;
+            for (int k : rangs) max = Math.max(max, fins[k] - debuts[k]);
+            return max;
+        }
+
+        /** Ajoute les rangs des plages qui intersectent [debut, fin) */
+        void chercher(int debut, int fin, List<Integer> resultat) {
+            // Une plage commençant au plus tard dureeMax minutes avant debut se termine avant lui
+            int i = premierDebutApres(debut - dureeMax);
+            for (; i < debuts.length && debuts[i] < fin; i++) {
+                if (fins[i] > debut) resultat.add(rangs[i]);
+            }
+        }
+
+        /** Indice du premier début > minute */
+        private int premierDebutApres(int minute) {
+            int lo = 0;
+            int hi = debuts.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (debuts[mid] <= minute) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    // ===== Internes =====
+
+    /** Durée en minutes d'une plage horaire; fin avant début: plage à cheval sur minuit */
+    private static int duree(ContrainteHoraire c) {
+        int duree = minuteDuJour(c.getHeureFin(), true) - minuteDuJour(c.getHeureDebut(), false);
+        return duree < 0 ? duree + MinutesEpoch.MINUTES_PAR_JOUR : duree;
+    }
+
+    private static int minuteDuJour(LocalTime t, boolean arrondiSuperieur) {
+        int secondes = t.toSecondOfDay();
+        return arrondiSuperieur ? (secondes + 59) / 60 : secondes / 60;
+    }
+
+    /** Marque [debut, fin) en minutes de la semaine, avec bouclage en fin de semaine */
+    private void marquer(int debut, int fin) {
+        for (int m = debut; m < fin; m++) {
+            int b = m % MinutesEpoch.MINUTES_PAR_SEMAINE;
+            indisponible[b >>> 6] |= 1L << b;
+        }
+        aucuneIndisponibilite = false;
+    }
+
+    /** Au moins un bit à 1 dans [de, a) (0 <= de <= a <= 10 080) ? */
+    private boolean intersecte(int de, int a) {
+        if (de >= a) return false;
+        int motDebut = de >>> 6;
+        int motFin = (a - 1) >>> 6;
+        long masqueDebut = -1L << de;           // décalage modulo 64
+        long masqueFin = -1L >>> (63 - ((a - 1) & 63));
+        if (motDebut == motFin) {
+            return (indisponible[motDebut] & masqueDebut & masqueFin) != 0;
+        }
+        if ((indisponible[motDebut] & masqueDebut) != 0) return true;
+        for (int w = motDebut + 1; w < motFin; w++) {
+            if (indisponible[w] != 0) return true;
+        }
+        return (indisponible[motFin] & masqueFin) != 0;
+    }
+
+    /** Indice du premier bit à la valeur donnée dans [de, a) (0 <= de <= a <= 10 080), ou -1 */
+    private int premierBit(int de, int a, boolean valeur) {
+        if (de >= a) return -1;
+        int motDebut = de >>> 6;
+        int motFin = (a - 1) >>> 6;
+        for (int w = motDebut; w <= motFin; w++) {
+            long mot = valeur ? indisponible[w] : ~indisponible[w];
+            if (w == motDebut) mot &= -1L << de;
+            if (w == motFin) mot &= -1L >>> (63 - ((a - 1) & 63));
+            if (mot != 0) return (w << 6) + Long.numberOfTrailingZeros(mot);
+        }
+        return -1;
+    }
+
+    /** Indice du dernier bit à 1 dans [de, a) (0 <= de <= a <= 10 080), ou -1 */
+    private int dernierBit(int de, int a) {
+        if (de >= a) return -1;
+        int motDebut = de >>> 6;
+        int motFin = (a - 1) >>> 6;
+        for (int w = motFin; w >= motDebut; w--) {
+            long mot = indisponible[w];
+            if (w == motFin) mot &= -1L >>> (63 - ((a - 1) & 63));
+            if (w == motDebut) mot &= -1L << de;
+            if (mot != 0) return (w << 6) + 63 - Long.numberOfLeadingZeros(mot);
+        }
+        return -1;
+    }
+
+    /** Indice de la première période dont la fin est > minute (fins triées car périodes disjointes) */
+    private int premierePeriodeFinissantApres(int minute) {
+        int lo = 0;
+        int hi = periodesFin.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (periodesFin[mid] <= minute) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+}
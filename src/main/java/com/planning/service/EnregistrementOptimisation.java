@@ -0,0 +1,230 @@
+package com.planning.service;
+
+import com.planning.model.Activite;
+import com.planning.model.ContrainteHoraire;
+import com.planning.model.ContraintePersonnelle;
+import com.planning.util.MinutesEpoch;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exécution d'optimisation enregistrée: entrées complètes (activités, activités fixes,
+ * contraintes, fenêtre, options, placement repris) et graine, pour la rejouer hors ligne
+ * à l'identique avec RejeuOptimisation.
+ *
+ * Activé par -Dplanning.optimisation.enregistrements=<répertoire>: chaque exécution y écrit un
+ * fichier texte, une ligne par élément, champs séparés par des tabulations. Les titres et
+ * descriptions ne sont pas enregistrés (sans effet sur l'optimisation).
+ */
+final class EnregistrementOptimisation {
+
+    /** Répertoire des enregistrements, null si le mode est inactif */
+    static final String REPERTOIRE = System.getProperty("planning.optimisation.enregistrements");
+
+    private static final String FORMAT = "planning-optimisation 1";
+    private static final String VIDE = "-";
+
+    int utilisateurId;
+    long graine;
+    LocalDateTime dateDebut;
+    LocalDateTime dateFin;
+    final OptionsOptimisation options = new OptionsOptimisation();
+    long versionContraintes;
+    final List<Activite> activites = new ArrayList<>();
+    final List<Activite> fixes = new ArrayList<>();
+    final List<ContrainteHoraire> horaires = new ArrayList<>();
+    final List<ContraintePersonnelle> personnelles = new ArrayList<>();
+    // Placement repris (démarrage à chaud), vide sinon
+    int repriseDebut;
+    int repriseFin;
+    final List<int[]> reprise = new ArrayList<>();
+    // Résultat observé lors de l'exécution d'origine
+    String moteur;
+    long dureeMillis;
+    long evaluations;
+    double meilleurCout = Double.NaN;
+    long empreinteResultat;
+
+    static boolean actif() { return REPERTOIRE != null && !REPERTOIRE.isEmpty(); }
+
+    /**
+     * Écrit l'enregistrement dans le répertoire configuré. Une erreur d'écriture ne fait
+     * jamais échouer l'optimisation.
+     */
+    void ecrire() {
+        Path fichier = Paths.get(REPERTOIRE, "optimisation-" + utilisateurId + "-" + System.currentTimeMillis()
+            + "-" + Long.toHexString(graine) + ".txt");
+        try {
+            Files.createDirectories(fichier.getParent());
+            ecrire(fichier);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    void ecrire(Path fichier) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+            ligne(out, FORMAT);
+            ligne(out, "utilisateur", utilisateurId);
+            ligne(out, "graine", graine);
+            ligne(out, "fenetre", dateDebut, dateFin);
+            ligne(out, "options", options.getMoteur(), options.getNbChaines(), options.getMode(),
+                options.getParallelisme(), options.getRefroidissement(), options.getDecomposition(),
+                options.isDemarrageAChaud(), options.getBudgetMillis(), options.getBudgetEvaluations(),
+                options.isFatigue());
+            ligne(out, "versionContraintes", versionContraintes);
+            for (Activite act : activites) ligneActivite(out, "activite", act);
+            for (Activite act : fixes) ligneActivite(out, "fixe", act);
+            for (ContrainteHoraire c : horaires) {
+                ligne(out, "horaire", c.getJourSemaine(), c.getHeureDebut(), c.getHeureFin(), c.getTypeContrainte());
+            }
+            for (ContraintePersonnelle c : personnelles) {
+                ligne(out, "personnelle", c.getDateDebut(), c.getDateFin(), c.getTypeContrainte());
+            }
+            if (!reprise.isEmpty()) {
+                ligne(out, "fenetreReprise", repriseDebut, repriseFin);
+                for (int[] p : reprise) ligne(out, "reprise", p[0], p[1], p[2]);
+            }
+            ligne(out, "resultat", moteur, dureeMillis, evaluations, meilleurCout, empreinteResultat);
+        }
+    }
+
+    static EnregistrementOptimisation lire(Path fichier) throws IOException {
+        EnregistrementOptimisation e = new EnregistrementOptimisation();
+        try (BufferedReader in = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+            String entete = in.readLine();
+            if (!FORMAT.equals(entete)) {
+                throw new IOException("Format d'enregistrement inconnu: " + entete);
+            }
+            String ligne;
+            while ((ligne = in.readLine()) != null) {
+                if (ligne.isEmpty()) continue;
+                String[] c = ligne.split("\t", -1);
+                switch (c[0]) {
+                    case "utilisateur": e.utilisateurId = Integer.parseInt(c[1]); break;
+                    case "graine": e.graine = Long.parseLong(c[1]); break;
+                    case "fenetre":
+                        e.dateDebut = LocalDateTime.parse(c[1]);
+                        e.dateFin = LocalDateTime.parse(c[2]);
+                        break;
+                    case "options":
+                        e.options.setMoteur(OptionsOptimisation.Moteur.valueOf(c[1]));
+                        e.options.setNbChaines(Integer.parseInt(c[2]));
+                        e.options.setMode(OptionsOptimisation.ModeParallele.valueOf(c[3]));
+                        e.options.setParallelisme(Integer.parseInt(c[4]));
+                        e.options.setRefroidissement(OptionsOptimisation.Refroidissement.valueOf(c[5]));
+                        e.options.setDecomposition(OptionsOptimisation.Decomposition.valueOf(c[6]));
+                        e.options.setDemarrageAChaud(Boolean.parseBoolean(c[7]));
+                        e.options.setBudgetMillis(Long.parseLong(c[8]));
+                        e.options.setBudgetEvaluations(Long.parseLong(c[9]));
+                        // Champ ajouté après coup: absent des enregistrements plus anciens
+                        if (c.length > 10) e.options.setFatigue(Boolean.parseBoolean(c[10]));
+                        break;
+                    case "versionContraintes": e.versionContraintes = Long.parseLong(c[1]); break;
+                    case "activite": e.activites.add(lireActivite(c, e.utilisateurId)); break;
+                    case "fixe": e.fixes.add(lireActivite(c, e.utilisateurId)); break;
+                    case "horaire": {
+                        ContrainteHoraire h = new ContrainteHoraire();
+                        h.setUtilisateurId(e.utilisateurId);
+                        h.setJourSemaine(texte(c[1]));
+                        h.setHeureDebut(VIDE.equals(c[2]) ? null : LocalTime.parse(c[2]));
+                        h.setHeureFin(VIDE.equals(c[3]) ? null : LocalTime.parse(c[3]));
+                        h.setTypeContrainte(texte(c[4]));
+                        e.horaires.add(h);
+                        break;
+                    }
+                    case "personnelle": {
+                        ContraintePersonnelle p = new ContraintePersonnelle();
+                        p.setUtilisateurId(e.utilisateurId);
+                        p.setDateDebut(date(c[1]));
+                        p.setDateFin(date(c[2]));
+                        p.setTypeContrainte(texte(c[3]));
+                        e.personnelles.add(p);
+                        break;
+                    }
+                    case "fenetreReprise":
+                        e.repriseDebut = Integer.parseInt(c[1]);
+                        e.repriseFin = Integer.parseInt(c[2]);
+                        break;
+                    case "reprise":
+                        e.reprise.add(new int[]{Integer.parseInt(c[1]), Integer.parseInt(c[2]), Integer.parseInt(c[3])});
+                        break;
+                    case "resultat":
+                        e.moteur = texte(c[1]);
+                        e.dureeMillis = Long.parseLong(c[2]);
+                        e.evaluations = Long.parseLong(c[3]);
+                        e.meilleurCout = Double.parseDouble(c[4]);
+                        e.empreinteResultat = Long.parseLong(c[5]);
+                        break;
+                    default:
+                        throw new IOException("Ligne d'enregistrement inconnue: " + c[0]);
+                }
+            }
+        }
+        return e;
+    }
+
+    /** Placement repris, sous forme d'activités (id, début, fin) pour réamorcer SolutionEnCache */
+    List<Activite> activitesReprises() {
+        List<Activite> out = new ArrayList<>(reprise.size());
+        for (int[] p : reprise) {
+            Activite act = new Activite();
+            act.setId(p[0]);
+            act.setDebut(MinutesEpoch.versDateTime(p[1]));
+            act.setFin(MinutesEpoch.versDateTime(p[2]));
+            out.add(act);
+        }
+        return out;
+    }
+
+    /** Empreinte d'un placement (ordre de la liste, id et créneaux), pour comparer deux exécutions */
+    static long empreinte(List<Activite> planning) {
+        long h = 17;
+        for (Activite act : planning) {
+            h = 31 * h + act.getId();
+            h = 31 * h + (act.getDebut() != null ? MinutesEpoch.de(act.getDebut()) : 0);
+            h = 31 * h + (act.getFin() != null ? MinutesEpoch.de(act.getFin()) : 0);
+        }
+        return h;
+    }
+
+    // ===== Internes =====
+
+    private static void ligneActivite(BufferedWriter out, String type, Activite act) throws IOException {
+        ligne(out, type, act.getId(), act.getDebut(), act.getFin(), act.getPriorite(), act.getCategorieId(), act.getStatut());
+    }
+
+    private static Activite lireActivite(String[] c, int utilisateurId) {
+        Activite act = new Activite();
+        act.setId(Integer.parseInt(c[1]));
+        act.setUtilisateurId(utilisateurId);
+        act.setDebut(date(c[2]));
+        act.setFin(date(c[3]));
+        act.setPriorite(texte(c[4]));
+        act.setCategorieId(VIDE.equals(c[5]) ? null : Integer.valueOf(c[5]));
+        act.setStatut(texte(c[6]));
+        return act;
+    }
+
+    private static void ligne(BufferedWriter out, Object... champs) throws IOException {
+        for (int k = 0; k < champs.length; k++) {
+            if (k > 0) out.write('\t');
+            out.write(champs[k] == null ? VIDE : champs[k].toString());
+        }
+        out.newLine();
+    }
+
+    private static String texte(String champ) { return VIDE.equals(champ) ? null : champ; }
+
+    private static LocalDateTime date(String champ) { return VIDE.equals(champ) ? null : LocalDateTime.parse(champ); }
+}
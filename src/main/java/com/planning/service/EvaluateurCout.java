@@ -0,0 +1,383 @@
+package com.planning.service;
+
+import com.planning.util.MinutesEpoch;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Évaluation incrémentale de la fonction objectif du recuit simulé.
+ *
+ * La solution est encodée dans des tableaux parallèles de primitives (début/fin en
+ * minutes depuis l'epoch, poids de priorité en octet): les mouvements modifient ces
+ * tableaux sur place et sont annulables, sans aucune allocation. Chaque terme
+ * du coût est conservé sous forme de total courant entier:
+ *   - nombre de chevauchements (internes + avec les activités fixes)
+ *   - minutes de temps morts au-delà de la pause tolérée
+ *   - nombre de violations de contraintes
+ *   - somme rang × poids de priorité (ordre chronologique)
+ *   - points de fatigue par jour (optionnel, voir FatigueJournaliere)
+ *
+ * Déplacer une activité ne recalcule que ce qui la concerne: ses chevauchements,
+ * les gaps avec ses voisins dans l'ordre chronologique, ses violations et le
+ * décalage de rang des activités qu'elle dépasse. Le coût obtenu est strictement
+ * identique à un recalcul complet (mêmes entiers, même formule de combinaison).
+ */
+class EvaluateurCout {
+
+    /** Gaps tolérés (pause) avant pénalisation, en minutes */
+    static final int PAUSE_TOLEREE = 30;
+
+    /** Active la vérification systématique delta / recalcul complet (-Dplanning.optimisation.verifierDelta=true) */
+    static final boolean VERIFIER_DELTA = Boolean.getBoolean("planning.optimisation.verifierDelta");
+
+    private final int n;
+    /** Diviseur du terme de priorités: n, ou la taille du problème complet pour un sous-problème */
+    private final int normalisationRangs;
+    private final int[] debuts;
+    private final int[] fins;
+    private final byte[] poids;
+
+    private final int[] fixesDebut;
+    private final int[] fixesFin;
+
+    /** Nombre de violations (0..2) d'un créneau [debut, fin) */
+    private final IntBinaryOperator violations;
+
+    /** Temps par terme des déplacements, null sans instrumentation */
+    private final ChronometreTermes chronometre;
+
+    /** Totaux de fatigue par jour, null si le terme est désactivé */
+    private final FatigueJournaliere fatigue;
+
+    // Ordre chronologique (debut, puis index): rang -> index et index -> rang
+    private final int[] ordre;
+    private final int[] rang;
+    private final int[] violationsParActivite;
+
+    // Totaux courants
+    private int nbChevauchements;
+    private long minutesMortes;
+    private int nbViolations;
+    private long sommeRangs;
+
+    // Journal des déplacements depuis la dernière validation (au plus 2 par voisin)
+    private final int[] journalIndex = new int[2];
+    private final int[] journalDebut = new int[2];
+    private final int[] journalFin = new int[2];
+    private int tailleJournal;
+
+    EvaluateurCout(int[] debuts, int[] fins, byte[] poids,
+                   int[] fixesDebut, int[] fixesFin,
+                   IntBinaryOperator violations) {
+        this(debuts, fins, poids, fixesDebut, fixesFin, violations, debuts.length, null, null);
+    }
+
+    EvaluateurCout(int[] debuts, int[] fins, byte[] poids,
+                   int[] fixesDebut, int[] fixesFin,
+                   IntBinaryOperator violations, int normalisationRangs, ChronometreTermes chronometre,
+                   FatigueJournaliere fatigue) {
+        this.n = debuts.length;
+        this.normalisationRangs = normalisationRangs;
+        this.debuts = debuts;
+        this.fins = fins;
+        this.poids = poids;
+        this.fixesDebut = fixesDebut;
+        this.fixesFin = fixesFin;
+        this.violations = violations;
+        this.chronometre = chronometre;
+        this.fatigue = fatigue;
+        this.ordre = new int[n];
+        this.rang = new int[n];
+        this.violationsParActivite = new int[n];
+        initialiser();
+    }
+
+    /**
+     * Combine les termes entiers en un coût pondéré.
+     * Unique point de calcul, partagé par le chemin incrémental et le recalcul complet.
+     */
+    static double combiner(int nbChevauchements, long minutesMortes, int nbViolations, long sommeRangs, int n,
+                           long pointsFatigue) {
+        double cout = 0.0;
+        cout += nbChevauchements * OptimisationService.POIDS_CONFLITS;
+        cout += (minutesMortes / 60.0) * OptimisationService.POIDS_GAPS;
+        cout += nbViolations * OptimisationService.POIDS_CONTRAINTES;
+        if (n > 0) {
+            cout += (sommeRangs / (double) n) * OptimisationService.POIDS_PRIORITES;
+        }
+        cout += (pointsFatigue / (double) FatigueJournaliere.ECHELLE) * OptimisationService.POIDS_FATIGUE;
+        return cout;
+    }
+
+    /**
+     * Les termes pondérés du coût courant (conflits, gaps, contraintes, priorités, fatigue),
+     * chacun obtenu par combiner avec les autres termes à zéro: leur somme, dans cet ordre,
+     * est exactement cout()
+     */
+    double[] composantes() {
+        return new double[]{
+            combiner(nbChevauchements, 0, 0, 0, 0, 0),
+            combiner(0, minutesMortes, 0, 0, 0, 0),
+            combiner(0, 0, nbViolations, 0, 0, 0),
+            combiner(0, 0, 0, sommeRangs, normalisationRangs, 0),
+            combiner(0, 0, 0, 0, 0, pointsFatigue())
+        };
+    }
+
+    int taille() { return n; }
+    int getDebut(int i) { return debuts[i]; }
+    int getFin(int i) { return fins[i]; }
+    int getPoids(int i) { return poids[i]; }
+    /** Index de l'activité au rang r de l'ordre chronologique */
+    int indiceAuRang(int r) { return ordre[r]; }
+
+    /** Copie les créneaux courants dans des tableaux préalloués (sans allocation) */
+    void copierCreneaux(int[] destDebuts, int[] destFins) {
+        System.arraycopy(debuts, 0, destDebuts, 0, n);
+        System.arraycopy(fins, 0, destFins, 0, n);
+    }
+
+    double cout() {
+        return combiner(nbChevauchements, minutesMortes, nbViolations, sommeRangs, normalisationRangs, pointsFatigue());
+    }
+
+    /**
+     * Déplace l'activité i sur [debut, fin) en mettant à jour les totaux, et retourne le nouveau coût.
+     * Le déplacement est journalisé pour pouvoir être annulé.
+     */
+    double deplacer(int i, int debut, int fin) {
+        if (tailleJournal == journalIndex.length) {
+            throw new IllegalStateException("Trop de déplacements non validés");
+        }
+        journalIndex[tailleJournal] = i;
+        journalDebut[tailleJournal] = debuts[i];
+        journalFin[tailleJournal] = fins[i];
+        tailleJournal++;
+
+        appliquer(i, debut, fin);
+        if (VERIFIER_DELTA) verifier();
+        return cout();
+    }
+
+    /** Vrai si des déplacements attendent une validation ou une annulation */
+    boolean aDesDeplacementsEnCours() {
+        return tailleJournal > 0;
+    }
+
+    /** Accepte les déplacements en cours */
+    void valider() {
+        tailleJournal = 0;
+    }
+
+    /** Annule les déplacements depuis la dernière validation (ordre inverse) */
+    void annuler() {
+        while (tailleJournal > 0) {
+            tailleJournal--;
+            appliquer(journalIndex[tailleJournal], journalDebut[tailleJournal], journalFin[tailleJournal]);
+        }
+    }
+
+    /**
+     * Recalcul complet du coût à partir des créneaux courants, sans utiliser les totaux
+     */
+    double recalculerComplet() {
+        int chevauchements = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (seChevauchent(debuts[i], fins[i], debuts[j], fins[j])) chevauchements++;
+            }
+            chevauchements += chevauchementsFixes(debuts[i], fins[i]);
+        }
+
+        int[] tri = new int[n];
+        for (int i = 0; i < n; i++) tri[i] = i;
+        trierParDebut(tri);
+
+        long morts = 0;
+        long rangs = 0;
+        for (int r = 0; r < n; r++) {
+            if (r > 0) morts += gap(tri[r - 1], tri[r]);
+            rangs += (long) r * poids[tri[r]];
+        }
+
+        int nbViol = 0;
+        for (int i = 0; i < n; i++) {
+            nbViol += violations.applyAsInt(debuts[i], fins[i]);
+        }
+
+        long fatigueComplete = 0;
+        if (fatigue != null) {
+            FatigueJournaliere f = fatigue.copie();
+            f.initialiser(debuts, fins, tri, n);
+            fatigueComplete = f.points();
+        }
+        return combiner(chevauchements, morts, nbViol, rangs, normalisationRangs, fatigueComplete);
+    }
+
+    // ===== Internes =====
+
+    private long pointsFatigue() {
+        return fatigue != null ? fatigue.points() : 0L;
+    }
+
+    private void initialiser() {
+        for (int i = 0; i < n; i++) ordre[i] = i;
+        trierParDebut(ordre);
+        for (int r = 0; r < n; r++) rang[ordre[r]] = r;
+
+        nbChevauchements = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (seChevauchent(debuts[i], fins[i], debuts[j], fins[j])) nbChevauchements++;
+            }
+            nbChevauchements += chevauchementsFixes(debuts[i], fins[i]);
+        }
+
+        minutesMortes = 0;
+        sommeRangs = 0;
+        for (int r = 0; r < n; r++) {
+            if (r > 0) minutesMortes += gap(ordre[r - 1], ordre[r]);
+            sommeRangs += (long) r * poids[ordre[r]];
+        }
+
+        nbViolations = 0;
+        for (int i = 0; i < n; i++) {
+            violationsParActivite[i] = violations.applyAsInt(debuts[i], fins[i]);
+            nbViolations += violationsParActivite[i];
+        }
+
+        if (fatigue != null) fatigue.initialiser(debuts, fins, ordre, n);
+    }
+
+    private void appliquer(int i, int debut, int fin) {
+        // Chronométrage par terme (instrumentation seulement)
+        long t = chronometre != null ? System.nanoTime() : 0L;
+
+        // 1. Chevauchements: retirer la contribution de i, déplacer, puis la rajouter
+        nbChevauchements -= chevauchementsDe(i);
+        if (chronometre != null) t = mesurer(ChronometreTermes.CONFLITS, t);
+
+        int ancienDebut = debuts[i];
+        if (fatigue != null) {
+            fatigue.retirer(ancienDebut, fins[i]);
+            if (chronometre != null) t = mesurer(ChronometreTermes.FATIGUE, t);
+        }
+
+        // 2. Gaps: retirer i de l'ordre chronologique à son rang actuel
+        int p = rang[i];
+        if (p > 0) minutesMortes -= gap(ordre[p - 1], i);
+        if (p < n - 1) minutesMortes -= gap(i, ordre[p + 1]);
+        if (p > 0 && p < n - 1) minutesMortes += gap(ordre[p - 1], ordre[p + 1]);
+
+        debuts[i] = debut;
+        fins[i] = fin;
+        if (chronometre != null) t = mesurer(ChronometreTermes.GAPS, t);
+
+        // 3. Repositionner i (décalage des activités dépassées) et ajuster la somme des rangs
+        int q = p;
+        long poidsDecales = 0;
+        while (q < n - 1 && avant(ordre[q + 1], i)) {
+            int k = ordre[q + 1];
+            ordre[q] = k;
+            rang[k] = q;
+            poidsDecales -= poids[k];
+            q++;
+        }
+        while (q > 0 && avant(i, ordre[q - 1])) {
+            int k = ordre[q - 1];
+            ordre[q] = k;
+            rang[k] = q;
+            poidsDecales += poids[k];
+            q--;
+        }
+        ordre[q] = i;
+        rang[i] = q;
+        sommeRangs += poidsDecales + (long) (q - p) * poids[i];
+        if (chronometre != null) t = mesurer(ChronometreTermes.PRIORITES, t);
+
+        if (q > 0 && q < n - 1) minutesMortes -= gap(ordre[q - 1], ordre[q + 1]);
+        if (q > 0) minutesMortes += gap(ordre[q - 1], i);
+        if (q < n - 1) minutesMortes += gap(i, ordre[q + 1]);
+        if (chronometre != null) t = mesurer(ChronometreTermes.GAPS, t);
+
+        nbChevauchements += chevauchementsDe(i);
+        if (chronometre != null) t = mesurer(ChronometreTermes.CONFLITS, t);
+
+        // Fatigue: contributions propres de i, puis blocs continus de l'ancien et du nouveau jour
+        if (fatigue != null) {
+            fatigue.ajouter(debut, fin);
+            fatigue.recalculerBlocs(ancienDebut, debuts, fins, ordre, n);
+            if (Math.floorDiv(debut, MinutesEpoch.MINUTES_PAR_JOUR) != Math.floorDiv(ancienDebut, MinutesEpoch.MINUTES_PAR_JOUR)) {
+                fatigue.recalculerBlocs(debut, debuts, fins, ordre, n);
+            }
+            if (chronometre != null) t = mesurer(ChronometreTermes.FATIGUE, t);
+        }
+
+        // 4. Violations de contraintes de i
+        nbViolations -= violationsParActivite[i];
+        violationsParActivite[i] = violations.applyAsInt(debut, fin);
+        nbViolations += violationsParActivite[i];
+        if (chronometre != null) mesurer(ChronometreTermes.CONTRAINTES, t);
+    }
+
+    /** Impute le temps écoulé depuis {@code depuis} au terme, et retourne l'instant courant */
+    private long mesurer(int terme, long depuis) {
+        long maintenant = System.nanoTime();
+        chronometre.ajouter(terme, maintenant - depuis);
+        return maintenant;
+    }
+
+    private int chevauchementsDe(int i) {
+        int count = 0;
+        int d = debuts[i];
+        int f = fins[i];
+        for (int j = 0; j < n; j++) {
+            if (j != i && seChevauchent(d, f, debuts[j], fins[j])) count++;
+        }
+        return count + chevauchementsFixes(d, f);
+    }
+
+    private int chevauchementsFixes(int debut, int fin) {
+        int count = 0;
+        for (int k = 0; k < fixesDebut.length; k++) {
+            if (seChevauchent(debut, fin, fixesDebut[k], fixesFin[k])) count++;
+        }
+        return count;
+    }
+
+    /** Minutes de temps mort pénalisées entre a et b consécutives (b après a) */
+    private long gap(int a, int b) {
+        int minutes = debuts[b] - fins[a];
+        return minutes > PAUSE_TOLEREE ? minutes - PAUSE_TOLEREE : 0;
+    }
+
+    /** Ordre chronologique total: début puis index (équivalent au tri stable de la liste) */
+    private boolean avant(int a, int b) {
+        return debuts[a] < debuts[b] || (debuts[a] == debuts[b] && a < b);
+    }
+
+    private void trierParDebut(int[] indices) {
+        // Tri par insertion: les solutions traitées restent de taille modeste
+        for (int x = 1; x < indices.length; x++) {
+            int v = indices[x];
+            int y = x - 1;
+            while (y >= 0 && avant(v, indices[y])) {
+                indices[y + 1] = indices[y];
+                y--;
+            }
+            indices[y + 1] = v;
+        }
+    }
+
+    private void verifier() {
+        double incremental = cout();
+        double complet = recalculerComplet();
+        if (Double.compare(incremental, complet) != 0) {
+            throw new IllegalStateException("Écart d'évaluation incrémentale: delta=" + incremental + " complet=" + complet);
+        }
+    }
+
+    static boolean seChevauchent(int debut1, int fin1, int debut2, int fin2) {
+        return debut1 < fin2 && debut2 < fin1;
+    }
+}
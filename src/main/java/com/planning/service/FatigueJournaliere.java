@@ -0,0 +1,231 @@
+package com.planning.service;
+
+import com.planning.util.MinutesEpoch;
+
+import java.util.Arrays;
+
+/**
+ * Terme de fatigue de l'évaluation incrémentale, tenu par jour de la fenêtre.
+ * Reprend les métriques de FatigueService, hors chevauchements (déjà comptés par le coût):
+ *   - minutes de nuit (22h-6h) des activités
+ *   - débuts avant 7h
+ *   - minutes au-delà de 2 h des blocs continus (pauses de 15 min au plus), activités fixes comprises
+ *   - minutes au-delà de 8 h par jour, activités fixes comprises
+ *
+ * Une activité compte pour le jour de son début; hors des jours de la fenêtre elle ne compte pas.
+ * Les totaux sont entiers: déplacer une activité ne met à jour que ses propres contributions et
+ * ne rebalaye que les blocs de son ancien et de son nouveau jour (quelques activités).
+ * Une instance appartient à un seul évaluateur; {@link #copie()} en crée une vierge.
+ */
+final class FatigueJournaliere {
+
+    static final int DEBUT_NUIT = 22 * 60;
+    static final int FIN_NUIT = 6 * 60;
+    static final int DEBUT_MATINAL = 7 * 60;
+    static final int BLOC_MAX = 120;
+    static final int PAUSE_BLOC = 15;
+    static final int JOURNEE_MAX = 8 * 60;
+    /** Les points de fatigue sont tenus multipliés par ce facteur pour rester entiers */
+    static final int ECHELLE = 30;
+
+    private static final int MINUTES_PAR_JOUR = MinutesEpoch.MINUTES_PAR_JOUR;
+
+    // Configuration partagée entre copies (lecture seule)
+    private final int premierJour;
+    private final int nbJours;
+    /** Activités fixes triées par début, et premier index de chaque jour (nbJours + 1 bornes) */
+    private final int[] fixesDebut;
+    private final int[] fixesFin;
+    private final int[] premierFixe;
+    private final int[] minutesFixes;
+
+    // État courant
+    private final int[] minutesJour;
+    private final int[] depassementBlocs;
+    private long minutesNuit;
+    private long debutsMatinaux;
+    private long depassementsJournee;
+    private long depassementsBlocs;
+
+    FatigueJournaliere(int fenetreDebut, int fenetreFin, int[] fixesDebut, int[] fixesFin) {
+        this.premierJour = Math.floorDiv(fenetreDebut, MINUTES_PAR_JOUR);
+        this.nbJours = Math.max(0, Math.floorDiv(fenetreFin - 1, MINUTES_PAR_JOUR) - premierJour + 1);
+        Integer[] tri = new Integer[fixesDebut.length];
+        for (int k = 0; k < tri.length; k++) tri[k] = k;
+        Arrays.sort(tri, (a, b) -> Integer.compare(fixesDebut[a], fixesDebut[b]));
+        this.fixesDebut = new int[tri.length];
+        this.fixesFin = new int[tri.length];
+        for (int k = 0; k < tri.length; k++) {
+            this.fixesDebut[k] = fixesDebut[tri[k]];
+            this.fixesFin[k] = fixesFin[tri[k]];
+        }
+        this.premierFixe = new int[nbJours + 1];
+        this.minutesFixes = new int[nbJours];
+        int k = 0;
+        for (int j = 0; j <= nbJours; j++) {
+            int debutJour = (premierJour + j) * MINUTES_PAR_JOUR;
+            while (k < this.fixesDebut.length && this.fixesDebut[k] < debutJour) {
+                if (j > 0) minutesFixes[j - 1] += this.fixesFin[k] - this.fixesDebut[k];
+                k++;
+            }
+            premierFixe[j] = k;
+        }
+        this.minutesJour = new int[nbJours];
+        this.depassementBlocs = new int[nbJours];
+    }
+
+    private FatigueJournaliere(FatigueJournaliere modele) {
+        this.premierJour = modele.premierJour;
+        this.nbJours = modele.nbJours;
+        this.fixesDebut = modele.fixesDebut;
+        this.fixesFin = modele.fixesFin;
+        this.premierFixe = modele.premierFixe;
+        this.minutesFixes = modele.minutesFixes;
+        this.minutesJour = new int[nbJours];
+        this.depassementBlocs = new int[nbJours];
+    }
+
+    /** Instance vierge de même configuration (fenêtre et activités fixes) */
+    FatigueJournaliere copie() {
+        return new FatigueJournaliere(this);
+    }
+
+    /**
+     * Calcule tous les totaux pour la solution donnée ({@code ordre}: indices triés par début)
+     */
+    void initialiser(int[] debuts, int[] fins, int[] ordre, int n) {
+        System.arraycopy(minutesFixes, 0, minutesJour, 0, nbJours);
+        minutesNuit = 0;
+        debutsMatinaux = 0;
+        for (int i = 0; i < n; i++) {
+            int j = jour(debuts[i]);
+            if (j < 0) continue;
+            minutesJour[j] += fins[i] - debuts[i];
+            minutesNuit += minutesNuit(debuts[i], fins[i]);
+            if (Math.floorMod(debuts[i], MINUTES_PAR_JOUR) < DEBUT_MATINAL) debutsMatinaux++;
+        }
+        depassementsJournee = 0;
+        depassementsBlocs = 0;
+        for (int j = 0; j < nbJours; j++) {
+            depassementsJournee += depassement(minutesJour[j], JOURNEE_MAX);
+            depassementBlocs[j] = blocs(j, debuts, fins, ordre, n);
+            depassementsBlocs += depassementBlocs[j];
+        }
+    }
+
+    /** Retire les contributions propres à une activité sur [debut, fin), avant son déplacement */
+    void retirer(int debut, int fin) {
+        int j = jour(debut);
+        if (j < 0) return;
+        minutesNuit -= minutesNuit(debut, fin);
+        if (Math.floorMod(debut, MINUTES_PAR_JOUR) < DEBUT_MATINAL) debutsMatinaux--;
+        depassementsJournee -= depassement(minutesJour[j], JOURNEE_MAX);
+        minutesJour[j] -= fin - debut;
+        depassementsJournee += depassement(minutesJour[j], JOURNEE_MAX);
+    }
+
+    /** Ajoute les contributions propres à une activité sur [debut, fin), après son déplacement */
+    void ajouter(int debut, int fin) {
+        int j = jour(debut);
+        if (j < 0) return;
+        minutesNuit += minutesNuit(debut, fin);
+        if (Math.floorMod(debut, MINUTES_PAR_JOUR) < DEBUT_MATINAL) debutsMatinaux++;
+        depassementsJournee -= depassement(minutesJour[j], JOURNEE_MAX);
+        minutesJour[j] += fin - debut;
+        depassementsJournee += depassement(minutesJour[j], JOURNEE_MAX);
+    }
+
+    /**
+     * Recalcule les blocs continus du jour contenant la minute {@code minute} (ordre déjà à jour)
+     */
+    void recalculerBlocs(int minute, int[] debuts, int[] fins, int[] ordre, int n) {
+        int j = jour(minute);
+        if (j < 0) return;
+        depassementsBlocs -= depassementBlocs[j];
+        depassementBlocs[j] = blocs(j, debuts, fins, ordre, n);
+        depassementsBlocs += depassementBlocs[j];
+    }
+
+    /** Points de fatigue (× ECHELLE): 2 par quart d'heure de nuit, 5 par début matinal, 0,5 par minute de dépassement */
+    long points() {
+        return 4 * minutesNuit + 150 * debutsMatinaux + 15 * (depassementsBlocs + depassementsJournee);
+    }
+
+    // ===== Internes =====
+
+    /** Jour de la fenêtre contenant la minute, -1 hors fenêtre */
+    private int jour(int minute) {
+        int j = Math.floorDiv(minute, MINUTES_PAR_JOUR) - premierJour;
+        return j >= 0 && j < nbJours ? j : -1;
+    }
+
+    /**
+     * Minutes au-delà de BLOC_MAX des blocs continus du jour j: fusion, dans l'ordre des débuts,
+     * des activités (rangs contigus de {@code ordre}) et des activités fixes qui commencent ce jour-là
+     */
+    private int blocs(int j, int[] debuts, int[] fins, int[] ordre, int n) {
+        int debutJour = (premierJour + j) * MINUTES_PAR_JOUR;
+        int finJour = debutJour + MINUTES_PAR_JOUR;
+        // Premier rang commençant dans le jour (recherche dichotomique sur l'ordre chronologique)
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (debuts[ordre[mid]] < debutJour) lo = mid + 1; else hi = mid;
+        }
+        int r = lo;
+        int k = premierFixe[j];
+        int kFin = premierFixe[j + 1];
+        int total = 0;
+        int blocDebut = 0;
+        int blocFin = 0;
+        boolean ouvert = false;
+        while (true) {
+            boolean activite = r < n && debuts[ordre[r]] < finJour;
+            boolean fixe = k < kFin;
+            if (!activite && !fixe) break;
+            int d;
+            int f;
+            if (activite && (!fixe || debuts[ordre[r]] <= fixesDebut[k])) {
+                d = debuts[ordre[r]];
+                f = fins[ordre[r]];
+                r++;
+            } else {
+                d = fixesDebut[k];
+                f = fixesFin[k];
+                k++;
+            }
+            if (ouvert && d - blocFin <= PAUSE_BLOC) {
+                blocFin = Math.max(blocFin, f);
+            } else {
+                if (ouvert) total += depassement(blocFin - blocDebut, BLOC_MAX);
+                blocDebut = d;
+                blocFin = f;
+                ouvert = true;
+            }
+        }
+        if (ouvert) total += depassement(blocFin - blocDebut, BLOC_MAX);
+        return total;
+    }
+
+    private static int depassement(int minutes, int seuil) {
+        return minutes > seuil ? minutes - seuil : 0;
+    }
+
+    /** Minutes de [debut, fin) comprises entre 22h et 6h */
+    static int minutesNuit(int debut, int fin) {
+        int total = 0;
+        for (int j = Math.floorDiv(debut, MINUTES_PAR_JOUR); j * MINUTES_PAR_JOUR < fin; j++) {
+            int minuit = j * MINUTES_PAR_JOUR;
+            total += chevauchement(debut, fin, minuit, minuit + FIN_NUIT);
+            total += chevauchement(debut, fin, minuit + DEBUT_NUIT, minuit + MINUTES_PAR_JOUR);
+        }
+        return total;
+    }
+
+    private static int chevauchement(int debut1, int fin1, int debut2, int fin2) {
+        int d = Math.max(debut1, debut2);
+        int f = Math.min(fin1, fin2);
+        return f > d ? f - d : 0;
+    }
+}
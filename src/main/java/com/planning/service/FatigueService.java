@@ -21,7 +21,7 @@ public class FatigueService {
      */
     public Map<LocalDate, Double> computeDailyFatigue(int userId, LocalDateTime debut, LocalDateTime fin) {
         List<Activite> activites = activiteDAO.findByUserAndDateRange(userId, debut, fin);
-        Map<LocalDate, List<Interval>> byDay = splitByDay(activites);
+        Map<LocalDate, List<Interval>> byDay = splitByDay(activites, debut, fin);
         Map<LocalDate, Double> result = new LinkedHashMap<>();
 
         LocalDate d0 = debut.toLocalDate();
@@ -44,7 +44,10 @@ public class FatigueService {
         long totalMinutes = 0;
         for (Activite a : activites) {
             if (a.getDebut() != null && a.getFin() != null) {
-                totalMinutes += Duration.between(a.getDebut(), a.getFin()).toMinutes();
+                // Seule la partie comprise dans la période compte
+                LocalDateTime start = a.getDebut().isAfter(debut) ? a.getDebut() : debut;
+                LocalDateTime end = a.getFin().isBefore(fin) ? a.getFin() : fin;
+                if (start.isBefore(end)) totalMinutes += Duration.between(start, end).toMinutes();
             }
         }
         double min = 100, max = 0, sum = 0;
@@ -66,12 +69,17 @@ public class FatigueService {
     }
 
     // ===== Internals =====
-    private Map<LocalDate, List<Interval>> splitByDay(List<Activite> activites) {
+    /**
+     * Découpe les activités par jour, rognées à la période [debut, fin): les activités à cheval
+     * sur ses bornes n'y comptent que pour leur partie intérieure
+     */
+    private Map<LocalDate, List<Interval>> splitByDay(List<Activite> activites, LocalDateTime debut, LocalDateTime fin) {
         Map<LocalDate, List<Interval>> map = new LinkedHashMap<>();
         for (Activite a : activites) {
-            LocalDateTime start = a.getDebut();
-            LocalDateTime end = a.getFin();
-            if (start == null || end == null) continue;
+            if (a.getDebut() == null || a.getFin() == null) continue;
+            LocalDateTime start = a.getDebut().isAfter(debut) ? a.getDebut() : debut;
+            LocalDateTime end = a.getFin().isBefore(fin) ? a.getFin() : fin;
+            if (!start.isBefore(end)) continue;
             LocalDate d = start.toLocalDate();
             LocalDate e = end.toLocalDate();
             LocalDate cur = d;
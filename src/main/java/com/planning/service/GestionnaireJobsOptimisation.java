@@ -0,0 +1,107 @@
+package com.planning.service;
+
+import com.planning.model.Activite;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécution asynchrone des optimisations sur un pool borné, hors des threads de requête.
+ * Les jobs terminés sont conservés un temps limité pour permettre leur consultation.
+ */
+public class GestionnaireJobsOptimisation {
+
+    private static final int TAILLE_FILE = 32;
+    private static final long RETENTION_NANOS = TimeUnit.MINUTES.toNanos(15);
+
+    private static final GestionnaireJobsOptimisation INSTANCE = new GestionnaireJobsOptimisation();
+
+    private final OptimisationService optimisationService = new OptimisationService();
+    private final ConcurrentHashMap<String, JobOptimisation> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+
+    private GestionnaireJobsOptimisation() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger compteur = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(TAILLE_FILE), r -> {
+                Thread t = new Thread(r, "optimisation-job-" + compteur.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static GestionnaireJobsOptimisation getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Soumet une optimisation et retourne immédiatement le job créé
+     * @throws RejectedExecutionException si la file d'attente est pleine
+     */
+    public JobOptimisation soumettre(List<Activite> activites, int utilisateurId,
+                                     LocalDateTime dateDebut, LocalDateTime dateFin,
+                                     OptionsOptimisation options, boolean appliquer) {
+        purgerTermines();
+        JobOptimisation job = new JobOptimisation(UUID.randomUUID().toString(), utilisateurId, appliquer, options.getSuivi());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> executer(job, activites, dateDebut, dateFin, options));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    public JobOptimisation get(String id) {
+        return id == null ? null : jobs.get(id);
+    }
+
+    /**
+     * Demande l'annulation: le job s'arrête au prochain palier avec la meilleure solution trouvée
+     */
+    public boolean annuler(String id) {
+        JobOptimisation job = get(id);
+        if (job == null) return false;
+        job.getSuivi().annuler();
+        return true;
+    }
+
+    public void arreter() {
+        executor.shutdownNow();
+    }
+
+    private void executer(JobOptimisation job, List<Activite> activites,
+                          LocalDateTime dateDebut, LocalDateTime dateFin, OptionsOptimisation options) {
+        job.demarrer();
+        try {
+            List<Activite> resultat = optimisationService.genererPlanningOptimise(
+                activites, job.getUtilisateurId(), dateDebut, dateFin, options);
+            if (job.isAppliquer()) {
+                optimisationService.appliquerPlanning(resultat);
+            }
+            job.terminer(resultat);
+        } catch (RuntimeException e) {
+            job.echouer(e.getMessage());
+        } catch (Error e) {
+            // OutOfMemoryError, StackOverflowError...: le job ne doit pas rester EN_COURS,
+            // le statut serait interrogé indéfiniment
+            job.echouer(e.toString());
+            throw e;
+        }
+    }
+
+    private void purgerTermines() {
+        long maintenant = System.nanoTime();
+        jobs.values().removeIf(j -> j.estTermine() && maintenant - j.getTermineNanos() > RETENTION_NANOS);
+    }
+}
@@ -0,0 +1,58 @@
+package com.planning.service;
+
+import com.planning.model.Activite;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Optimisation exécutée en arrière-plan, identifiée par un id opaque
+ */
+public class JobOptimisation {
+    private final String id;
+    private final int utilisateurId;
+    private final boolean appliquer;
+    private final SuiviOptimisation suivi;
+    private final LocalDateTime soumisLe = LocalDateTime.now();
+
+    private volatile String statut = "EN_ATTENTE"; // EN_ATTENTE, EN_COURS, TERMINE, ANNULE, ECHEC
+    private volatile List<Activite> resultat;
+    private volatile String erreur;
+    private volatile long termineNanos;
+
+    JobOptimisation(String id, int utilisateurId, boolean appliquer, SuiviOptimisation suivi) {
+        this.id = id;
+        this.utilisateurId = utilisateurId;
+        this.appliquer = appliquer;
+        this.suivi = suivi;
+    }
+
+    public String getId() { return id; }
+    public int getUtilisateurId() { return utilisateurId; }
+    public boolean isAppliquer() { return appliquer; }
+    public SuiviOptimisation getSuivi() { return suivi; }
+    public LocalDateTime getSoumisLe() { return soumisLe; }
+    public String getStatut() { return statut; }
+    public List<Activite> getResultat() { return resultat; }
+    public String getErreur() { return erreur; }
+
+    public boolean estTermine() {
+        return "TERMINE".equals(statut) || "ANNULE".equals(statut) || "ECHEC".equals(statut);
+    }
+
+    void demarrer() { statut = "EN_COURS"; }
+
+    void terminer(List<Activite> resultat) {
+        this.resultat = resultat;
+        this.termineNanos = System.nanoTime();
+        this.statut = suivi.estAnnule() ? "ANNULE" : "TERMINE";
+    }
+
+    void echouer(String erreur) {
+        this.erreur = erreur;
+        this.termineNanos = System.nanoTime();
+        this.statut = "ECHEC";
+    }
+
+    long getTermineNanos() { return termineNanos; }
+}
@@ -0,0 +1,197 @@
+package com.planning.service;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Agrégats de toutes les optimisations depuis le démarrage (ou la dernière réinitialisation):
+ * nombre d'exécutions, évaluations, durées par phase, coût moyen par terme, acceptation par type
+ * de mouvement et temps par terme (exécutions instrumentées). Alimenté par le service en fin
+ * d'exécution, lu en JMX et par /optimisation/metriques.
+ */
+public final class MetriquesOptimisation implements MetriquesOptimisationMBean {
+
+    private static final SuiviOptimisation.Terme[] TERMES = SuiviOptimisation.Terme.values();
+    private static final SuiviOptimisation.Mouvement[] MOUVEMENTS = SuiviOptimisation.Mouvement.values();
+    private static final String NOM_JMX = "com.planning:type=Optimisation";
+    private static final MetriquesOptimisation INSTANCE = new MetriquesOptimisation();
+    static {
+        INSTANCE.enregistrerJmx();
+    }
+
+    private long executions;
+    private long executionsAnnulees;
+    private long demarragesAChaud;
+    private final Map<String, Long> executionsParMoteur = new TreeMap<>();
+    private long evaluations;
+    private long dureeMillis;
+    private long chargementMillis;
+    private long rechercheMillis;
+    private double cout;
+    private final double[] coutParTerme = new double[TERMES.length];
+    private final long[] mouvementsEvalues = new long[MOUVEMENTS.length];
+    private final long[] mouvementsAcceptes = new long[MOUVEMENTS.length];
+    private long executionsInstrumentees;
+    private final long[] nanosParTerme = new long[TERMES.length];
+
+    private MetriquesOptimisation() {}
+
+    public static MetriquesOptimisation getInstance() {
+        return INSTANCE;
+    }
+
+    /** Retire le MBean (arrêt de l'application: ne pas retenir le chargeur de classes) */
+    public static void desenregistrerJmx() {
+        try {
+            MBeanServer serveur = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nom = new ObjectName(NOM_JMX);
+            if (serveur.isRegistered(nom)) serveur.unregisterMBean(nom);
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void enregistrerJmx() {
+        try {
+            MBeanServer serveur = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nom = new ObjectName(NOM_JMX);
+            // Redéploiement: remplacer l'instance de l'ancien chargeur de classes
+            if (serveur.isRegistered(nom)) serveur.unregisterMBean(nom);
+            serveur.registerMBean(this, nom);
+        } catch (JMException | SecurityException e) {
+            e.printStackTrace();
+        }
+    }
+
+    synchronized void executionTerminee(SuiviOptimisation suivi) {
+        executions++;
+        if (suivi.estAnnule()) executionsAnnulees++;
+        if (suivi.isDemarrageAChaud()) demarragesAChaud++;
+        if (suivi.getMoteur() != null) executionsParMoteur.merge(suivi.getMoteur(), 1L, Long::sum);
+        BudgetOptimisation budget = suivi.getBudget();
+        evaluations += budget.getEvaluations();
+        dureeMillis += budget.getDureeMillis();
+        chargementMillis += Math.max(0, suivi.getChargementMillis());
+        rechercheMillis += Math.max(0, suivi.getRechercheMillis());
+        for (SuiviOptimisation.Terme terme : TERMES) {
+            double composante = suivi.getComposanteCout(terme);
+            if (!Double.isNaN(composante)) {
+                coutParTerme[terme.ordinal()] += composante;
+                cout += composante;
+            }
+        }
+        for (SuiviOptimisation.Mouvement mouvement : MOUVEMENTS) {
+            mouvementsEvalues[mouvement.ordinal()] += suivi.getMouvementsTires(mouvement) - suivi.getMouvementsEcartes(mouvement);
+            mouvementsAcceptes[mouvement.ordinal()] += suivi.getMouvementsAcceptes(mouvement);
+        }
+        if (suivi.isChronometre()) {
+            executionsInstrumentees++;
+            for (SuiviOptimisation.Terme terme : TERMES) nanosParTerme[terme.ordinal()] += suivi.getNanosTerme(terme);
+        }
+    }
+
+    // ===== Lecture par terme / type de mouvement =====
+
+    /** Terme pondéré moyen du coût final */
+    public synchronized double getCoutMoyen(SuiviOptimisation.Terme terme) {
+        return executions == 0 ? 0.0 : coutParTerme[terme.ordinal()] / executions;
+    }
+
+    /** Temps total passé sur le terme dans l'évaluation incrémentale (exécutions instrumentées) */
+    public synchronized double getTempsTermeMillis(SuiviOptimisation.Terme terme) {
+        return nanosParTerme[terme.ordinal()] / 1e6;
+    }
+
+    public synchronized long getMouvementsEvalues(SuiviOptimisation.Mouvement mouvement) {
+        return mouvementsEvalues[mouvement.ordinal()];
+    }
+
+    public synchronized long getMouvementsAcceptes(SuiviOptimisation.Mouvement mouvement) {
+        return mouvementsAcceptes[mouvement.ordinal()];
+    }
+
+    public synchronized double getTauxAcceptation(SuiviOptimisation.Mouvement mouvement) {
+        long evalues = mouvementsEvalues[mouvement.ordinal()];
+        return evalues == 0 ? 0.0 : mouvementsAcceptes[mouvement.ordinal()] / (double) evalues;
+    }
+
+    /** Copie des exécutions par moteur */
+    public synchronized Map<String, Long> getExecutionsParMoteurMap() {
+        return new TreeMap<>(executionsParMoteur);
+    }
+
+    // ===== MBean =====
+
+    @Override public synchronized long getExecutions() { return executions; }
+    @Override public synchronized long getExecutionsAnnulees() { return executionsAnnulees; }
+    @Override public synchronized long getDemarragesAChaud() { return demarragesAChaud; }
+    @Override public synchronized String getExecutionsParMoteur() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, Long> e : executionsParMoteur.entrySet()) {
+            if (out.length() > 0) out.append(", ");
+            out.append(e.getKey()).append('=').append(e.getValue());
+        }
+        return out.toString();
+    }
+    @Override public synchronized long getEvaluations() { return evaluations; }
+
+    @Override public synchronized double getDureeMoyenneMillis() { return moyenne(dureeMillis); }
+    @Override public synchronized double getChargementMoyenMillis() { return moyenne(chargementMillis); }
+    @Override public synchronized double getRechercheMoyenneMillis() { return moyenne(rechercheMillis); }
+
+    @Override public synchronized double getCoutMoyen() { return executions == 0 ? 0.0 : cout / executions; }
+    @Override public double getCoutMoyenConflits() { return getCoutMoyen(SuiviOptimisation.Terme.CONFLITS); }
+    @Override public double getCoutMoyenGaps() { return getCoutMoyen(SuiviOptimisation.Terme.GAPS); }
+    @Override public double getCoutMoyenContraintes() { return getCoutMoyen(SuiviOptimisation.Terme.CONTRAINTES); }
+    @Override public double getCoutMoyenPriorites() { return getCoutMoyen(SuiviOptimisation.Terme.PRIORITES); }
+    @Override public double getCoutMoyenFatigue() { return getCoutMoyen(SuiviOptimisation.Terme.FATIGUE); }
+
+    @Override public double getTauxAcceptationDecalage() { return getTauxAcceptation(SuiviOptimisation.Mouvement.DECALAGE); }
+    @Override public double getTauxAcceptationEchange() { return getTauxAcceptation(SuiviOptimisation.Mouvement.ECHANGE); }
+    @Override public double getTauxAcceptationDuree() { return getTauxAcceptation(SuiviOptimisation.Mouvement.DUREE); }
+
+    @Override public synchronized long getExecutionsInstrumentees() { return executionsInstrumentees; }
+    @Override public double getTempsConflitsMillis() { return getTempsTermeMillis(SuiviOptimisation.Terme.CONFLITS); }
+    @Override public double getTempsGapsMillis() { return getTempsTermeMillis(SuiviOptimisation.Terme.GAPS); }
+    @Override public double getTempsContraintesMillis() { return getTempsTermeMillis(SuiviOptimisation.Terme.CONTRAINTES); }
+    @Override public double getTempsPrioritesMillis() { return getTempsTermeMillis(SuiviOptimisation.Terme.PRIORITES); }
+    @Override public double getTempsFatigueMillis() { return getTempsTermeMillis(SuiviOptimisation.Terme.FATIGUE); }
+
+    // Cache de résultats: compteurs propres au cache, non remis à zéro par reinitialiser()
+    @Override public long getCacheResultatsSucces() { return ResultatEnCache.getSucces(); }
+    @Override public long getCacheResultatsEchecs() { return ResultatEnCache.getEchecs(); }
+    @Override public double getCacheResultatsTauxSucces() {
+        long succes = ResultatEnCache.getSucces();
+        long total = succes + ResultatEnCache.getEchecs();
+        return total == 0 ? 0.0 : succes / (double) total;
+    }
+    @Override public int getCacheResultatsEntrees() { return ResultatEnCache.getEntrees(); }
+    @Override public long getCacheResultatsOctets() { return ResultatEnCache.getOctets(); }
+
+    @Override
+    public synchronized void reinitialiser() {
+        executions = 0;
+        executionsAnnulees = 0;
+        demarragesAChaud = 0;
+        executionsParMoteur.clear();
+        evaluations = 0;
+        dureeMillis = 0;
+        chargementMillis = 0;
+        rechercheMillis = 0;
+        cout = 0;
+        Arrays.fill(coutParTerme, 0.0);
+        Arrays.fill(mouvementsEvalues, 0);
+        Arrays.fill(mouvementsAcceptes, 0);
+        executionsInstrumentees = 0;
+        Arrays.fill(nanosParTerme, 0);
+    }
+
+    private double moyenne(long total) {
+        return executions == 0 ? 0.0 : total / (double) executions;
+    }
+}
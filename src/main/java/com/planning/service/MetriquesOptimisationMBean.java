@@ -0,0 +1,47 @@
+package com.planning.service;
+
+/**
+ * Agrégats des optimisations exposés en JMX (com.planning:type=Optimisation)
+ */
+public interface MetriquesOptimisationMBean {
+
+    long getExecutions();
+    long getExecutionsAnnulees();
+    long getDemarragesAChaud();
+    /** Exécutions par moteur, sous la forme "recuit=12, glouton=3" */
+    String getExecutionsParMoteur();
+    long getEvaluations();
+
+    double getDureeMoyenneMillis();
+    double getChargementMoyenMillis();
+    double getRechercheMoyenneMillis();
+
+    double getCoutMoyen();
+    double getCoutMoyenConflits();
+    double getCoutMoyenGaps();
+    double getCoutMoyenContraintes();
+    double getCoutMoyenPriorites();
+    double getCoutMoyenFatigue();
+
+    double getTauxAcceptationDecalage();
+    double getTauxAcceptationEchange();
+    double getTauxAcceptationDuree();
+
+    /** Exécutions dont le temps par terme a été mesuré (stats=true) */
+    long getExecutionsInstrumentees();
+    double getTempsConflitsMillis();
+    double getTempsGapsMillis();
+    double getTempsContraintesMillis();
+    double getTempsPrioritesMillis();
+    double getTempsFatigueMillis();
+
+    /** Cache de résultats (requêtes identiques sans écriture depuis) */
+    long getCacheResultatsSucces();
+    long getCacheResultatsEchecs();
+    double getCacheResultatsTauxSucces();
+    int getCacheResultatsEntrees();
+    /** Mémoire occupée estimée par le cache de résultats */
+    long getCacheResultatsOctets();
+
+    void reinitialiser();
+}
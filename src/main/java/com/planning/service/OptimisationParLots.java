@@ -0,0 +1,384 @@
+package com.planning.service;
+
+import com.planning.dao.ActiviteDAO;
+import com.planning.dao.ContrainteDAO;
+import com.planning.dao.impl.ActiviteDAOImpl;
+import com.planning.dao.impl.ContrainteDAOImpl;
+import com.planning.model.Activite;
+import com.planning.model.ContrainteHoraire;
+import com.planning.model.ContraintePersonnelle;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replanification par lots de nombreux utilisateurs (typiquement la semaine suivante, chaque nuit).
+ *
+ * Les utilisateurs sont traités par tranches de TAILLE_TRANCHE: activités et contraintes d'une
+ * tranche sont préchargées en trois requêtes groupées, pendant que la tranche précédente s'optimise.
+ * Chaque utilisateur est optimisé sur une seule chaîne, avec le même budget de temps: le
+ * parallélisme vient des utilisateurs (pool borné), et aucun gros planning ne peut accaparer le pool.
+ * Dans une tranche, les plus gros plannings partent en premier pour ne pas allonger la fin du lot.
+ * Les activités PLANIFIE contenues dans la fenêtre sont replanifiées, les autres (dont celles
+ * à cheval sur ses bornes) restent fixes; le résultat
+ * de chaque utilisateur est écrit en un lot transactionnel (seules les activités déplacées).
+ * Un utilisateur dont les activités ont changé depuis le préchargement est relu avant d'être
+ * optimisé; si elles changent encore pendant l'optimisation, son planning n'est pas appliqué.
+ */
+public class OptimisationParLots {
+
+    static final int TAILLE_TRANCHE = 200;
+    static final long BUDGET_UTILISATEUR_MS = 2000;
+
+    private static final OptimisationParLots INSTANCE = new OptimisationParLots();
+
+    private final ActiviteDAO activiteDAO;
+    private final ContrainteDAO contrainteDAO;
+    private final AtomicBoolean enCours = new AtomicBoolean();
+    private final Set<SuiviOptimisation> actifs = ConcurrentHashMap.newKeySet();
+    private volatile RapportLot dernierRapport;
+    // Thread des lots: nocturnes et lancés à la demande, jamais sur un thread de requête
+    private ScheduledExecutorService planificateur;
+    private ScheduledFuture<?> nuit;
+
+    private OptimisationParLots() {
+        this(new ActiviteDAOImpl(), new ContrainteDAOImpl());
+    }
+
+    OptimisationParLots(ActiviteDAO activiteDAO, ContrainteDAO contrainteDAO) {
+        this.activiteDAO = activiteDAO;
+        this.contrainteDAO = contrainteDAO;
+    }
+
+    public static OptimisationParLots getInstance() {
+        return INSTANCE;
+    }
+
+    /** Rapport du dernier lot (en cours ou terminé), null si aucun lot n'a été lancé */
+    public RapportLot getDernierRapport() {
+        return dernierRapport;
+    }
+
+    /**
+     * Replanifie la semaine suivante de tous les utilisateurs ayant des activités, chaque jour à l'heure donnée
+     */
+    public synchronized void planifierChaqueNuit(LocalTime heure) {
+        if (nuit != null) nuit.cancel(false);
+        LocalDateTime maintenant = LocalDateTime.now();
+        LocalDateTime prochaine = maintenant.toLocalDate().atTime(heure);
+        if (!prochaine.isAfter(maintenant)) prochaine = prochaine.plusDays(1);
+        nuit = executeur().scheduleAtFixedRate(() -> {
+            LocalDateTime debut = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atStartOfDay();
+            LocalDateTime fin = debut.plusDays(7);
+            try {
+                executer(null, debut, fin, BUDGET_UTILISATEUR_MS, true, 0);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, Duration.between(maintenant, prochaine).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lance un lot sur le thread des lots et retourne aussitôt son rapport, en cours
+     * (mêmes paramètres que {@link #executer})
+     * @throws IllegalStateException si un lot est déjà en cours
+     */
+    public synchronized RapportLot lancer(List<Integer> utilisateurs, LocalDateTime debut, LocalDateTime fin,
+                                          long budgetMillis, boolean appliquer, int threads) {
+        RapportLot rapport = demarrer(debut, fin);
+        try {
+            executeur().execute(() -> {
+                try {
+                    derouler(rapport, utilisateurs, debut, fin, budgetMillis, appliquer, threads);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rapport.terminer();
+            enCours.set(false);
+            throw new IllegalStateException("Replanification par lots indisponible", e);
+        }
+        return rapport;
+    }
+
+    /**
+     * Exécute un lot et attend sa fin
+     * @param utilisateurs utilisateurs à replanifier; null = tous ceux qui ont des activités dans la fenêtre
+     * @param budgetMillis budget de temps par utilisateur
+     * @param appliquer persister les plannings obtenus
+     * @param threads taille du pool; 0 = nombre de processeurs
+     * @throws IllegalStateException si un lot est déjà en cours
+     */
+    public RapportLot executer(List<Integer> utilisateurs, LocalDateTime debut, LocalDateTime fin,
+                               long budgetMillis, boolean appliquer, int threads) {
+        RapportLot rapport = demarrer(debut, fin);
+        derouler(rapport, utilisateurs, debut, fin, budgetMillis, appliquer, threads);
+        return rapport;
+    }
+
+    /** Réserve l'exécution d'un lot et publie son rapport */
+    private RapportLot demarrer(LocalDateTime debut, LocalDateTime fin) {
+        if (!enCours.compareAndSet(false, true)) {
+            throw new IllegalStateException("Une replanification par lots est déjà en cours");
+        }
+        RapportLot rapport = new RapportLot(debut, fin);
+        dernierRapport = rapport;
+        return rapport;
+    }
+
+    private void derouler(RapportLot rapport, List<Integer> utilisateurs, LocalDateTime debut, LocalDateTime fin,
+                          long budgetMillis, boolean appliquer, int threads) {
+        int taillePool = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger compteur = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(taillePool, r -> {
+            Thread t = new Thread(r, "optimisation-lot-" + compteur.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Integer> ids = utilisateurs != null ? utilisateurs : activiteDAO.findUtilisateursByDateRange(debut, fin);
+            Prechargement donnees = new Prechargement(debut, fin);
+            OptimisationService service = new OptimisationService(donnees.activites, donnees.contraintes);
+
+            List<Future<?>> precedents = Collections.emptyList();
+            for (int k = 0; k < ids.size(); k += TAILLE_TRANCHE) {
+                // Précharger la tranche suivante pendant que la précédente s'optimise
+                List<Integer> tranche = new ArrayList<>(ids.subList(k, Math.min(ids.size(), k + TAILLE_TRANCHE)));
+                donnees.charger(tranche);
+                tranche.sort((a, b) -> donnees.nombreMobiles(b) - donnees.nombreMobiles(a));
+                List<Future<?>> courants = new ArrayList<>(tranche.size());
+                for (Integer id : tranche) {
+                    courants.add(pool.submit(() -> traiter(service, donnees, id, debut, fin, budgetMillis, appliquer, rapport)));
+                }
+                // Au plus deux tranches en mémoire
+                attendre(precedents);
+                precedents = courants;
+            }
+            attendre(precedents);
+        } finally {
+            pool.shutdownNow();
+            rapport.terminer();
+            enCours.set(false);
+        }
+    }
+
+    /** Thread des lots, créé au premier besoin */
+    private synchronized ScheduledExecutorService executeur() {
+        if (planificateur == null) {
+            planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "optimisation-lots");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return planificateur;
+    }
+
+    /** Annule le lot en cours (chaque utilisateur garde la meilleure solution trouvée) et la planification nocturne */
+    public synchronized void arreter() {
+        if (planificateur != null) {
+            planificateur.shutdownNow();
+            planificateur = null;
+            nuit = null;
+        }
+        for (SuiviOptimisation suivi : actifs) suivi.annuler();
+    }
+
+    private void traiter(OptimisationService service, Prechargement donnees, int utilisateurId,
+                         LocalDateTime debut, LocalDateTime fin, long budgetMillis, boolean appliquer,
+                         RapportLot rapport) {
+        long debutNanos = System.nanoTime();
+        OptionsOptimisation options = new OptionsOptimisation();
+        options.setBudgetMillis(budgetMillis);
+        actifs.add(options.getSuivi());
+        try {
+            // Préchargement périmé (tranche chargée il y a parfois plusieurs minutes): relire l'utilisateur
+            if (!donnees.activitesAJour(utilisateurId)) {
+                donnees.liberer(utilisateurId);
+                donnees.charger(Collections.singletonList(utilisateurId));
+            }
+            List<Activite> mobiles = donnees.mobiles(utilisateurId);
+            List<Activite> resultat = service.genererPlanningOptimise(mobiles, utilisateurId, debut, fin, options);
+            if (appliquer && !donnees.activitesAJour(utilisateurId)) {
+                // Modifiées pendant l'optimisation: ne pas écraser les changements de l'utilisateur
+                rapport.echec(utilisateurId, System.nanoTime() - debutNanos,
+                    "activités modifiées pendant l'optimisation, planning non appliqué");
+                return;
+            }
+            BilanApplication bilan = appliquer && !resultat.isEmpty() ? service.appliquerPlanning(resultat) : null;
+            rapport.reussite(System.nanoTime() - debutNanos, mobiles.size(), bilan);
+        } catch (RuntimeException e) {
+            rapport.echec(utilisateurId, System.nanoTime() - debutNanos, e.getMessage());
+        } finally {
+            actifs.remove(options.getSuivi());
+            donnees.liberer(utilisateurId);
+        }
+    }
+
+    private static void attendre(List<Future<?>> futures) {
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Activités et contraintes des tranches en cours, servies au service d'optimisation à la place
+     * des requêtes unitaires. Les écritures et tout ce qui n'a pas été préchargé passent par les DAO réels.
+     */
+    private final class Prechargement {
+        final LocalDateTime debut;
+        final LocalDateTime fin;
+        // Par utilisateur: activités à replanifier, activités fixes, état stocké de toutes les activités
+        final Map<Integer, List<Activite>> mobiles = new ConcurrentHashMap<>();
+        final Map<Integer, List<Activite>> fixes = new ConcurrentHashMap<>();
+        final Map<Integer, Activite> stockees = new ConcurrentHashMap<>();
+        final Map<Integer, List<ContrainteHoraire>> horaires = new ConcurrentHashMap<>();
+        final Map<Integer, List<ContraintePersonnelle>> personnelles = new ConcurrentHashMap<>();
+        final Map<Integer, Long> versions = new ConcurrentHashMap<>();
+        final Map<Integer, Long> versionsActivites = new ConcurrentHashMap<>();
+        final ActiviteDAO activites = new ActivitesPrechargees();
+        final ContrainteDAO contraintes = new ContraintesPrechargees();
+
+        Prechargement(LocalDateTime debut, LocalDateTime fin) {
+            this.debut = debut;
+            this.fin = fin;
+        }
+
+        void charger(List<Integer> ids) {
+            // Versions lues avant les requêtes: une écriture concurrente fera ignorer ou relire le préchargement
+            for (Integer id : ids) {
+                versions.put(id, contrainteDAO.getVersion(id));
+                versionsActivites.put(id, activiteDAO.getVersion(id));
+            }
+            Map<Integer, List<Activite>> parUtilisateur = activiteDAO.findByUsersAndDateRange(ids, debut, fin);
+            Map<Integer, List<ContrainteHoraire>> h = contrainteDAO.findHoraireByUsers(ids);
+            Map<Integer, List<ContraintePersonnelle>> p = contrainteDAO.findPersonnelleByUsers(ids);
+            for (Integer id : ids) {
+                List<Activite> aReplanifier = new ArrayList<>();
+                List<Activite> fixesUtilisateur = new ArrayList<>();
+                for (Activite a : parUtilisateur.getOrDefault(id, Collections.<Activite>emptyList())) {
+                    stockees.put(a.getId(), a);
+                    boolean contenue = !a.getDebut().isBefore(debut) && !a.getFin().isAfter(fin);
+                    boolean planifiee = a.getStatut() == null || "PLANIFIE".equals(a.getStatut());
+                    if (contenue && planifiee) aReplanifier.add(a); else fixesUtilisateur.add(a);
+                }
+                mobiles.put(id, aReplanifier);
+                fixes.put(id, fixesUtilisateur);
+                horaires.put(id, h.getOrDefault(id, Collections.<ContrainteHoraire>emptyList()));
+                personnelles.put(id, p.getOrDefault(id, Collections.<ContraintePersonnelle>emptyList()));
+            }
+        }
+
+        int nombreMobiles(int utilisateurId) {
+            return mobiles.getOrDefault(utilisateurId, Collections.<Activite>emptyList()).size();
+        }
+
+        List<Activite> mobiles(int utilisateurId) {
+            return mobiles.getOrDefault(utilisateurId, Collections.<Activite>emptyList());
+        }
+
+        void liberer(int utilisateurId) {
+            List<Activite> m = mobiles.remove(utilisateurId);
+            List<Activite> f = fixes.remove(utilisateurId);
+            if (m != null) for (Activite a : m) stockees.remove(a.getId());
+            if (f != null) for (Activite a : f) stockees.remove(a.getId());
+            horaires.remove(utilisateurId);
+            personnelles.remove(utilisateurId);
+            versions.remove(utilisateurId);
+            versionsActivites.remove(utilisateurId);
+        }
+
+        /** Aucune écriture d'activité de l'utilisateur depuis son préchargement */
+        boolean activitesAJour(int utilisateurId) {
+            Long v = versionsActivites.get(utilisateurId);
+            return v != null && v == activiteDAO.getVersion(utilisateurId);
+        }
+
+        boolean contraintesAJour(int utilisateurId) {
+            Long v = versions.get(utilisateurId);
+            return v != null && v == contrainteDAO.getVersion(utilisateurId);
+        }
+
+        private final class ActivitesPrechargees implements ActiviteDAO {
+            @Override public List<Activite> findByUserAndDateRange(int userId, LocalDateTime d, LocalDateTime f) {
+                List<Activite> l = fixes.get(userId);
+                return l != null && d.equals(debut) && f.equals(fin) ? l : activiteDAO.findByUserAndDateRange(userId, d, f);
+            }
+            @Override public List<Activite> findByIds(List<Integer> ids) {
+                List<Activite> trouvees = new ArrayList<>(ids.size());
+                List<Integer> manquantes = new ArrayList<>();
+                for (Integer id : ids) {
+                    Activite a = stockees.get(id);
+                    if (a != null) trouvees.add(a); else manquantes.add(id);
+                }
+                if (!manquantes.isEmpty()) trouvees.addAll(activiteDAO.findByIds(manquantes));
+                return trouvees;
+            }
+            @Override public Activite findById(int id) { return activiteDAO.findById(id); }
+            @Override public List<Activite> findAllByUser(int userId) { return activiteDAO.findAllByUser(userId); }
+            @Override public void save(Activite activite) { activiteDAO.save(activite); }
+            @Override public void update(Activite activite) { activiteDAO.update(activite); }
+            @Override public void delete(int id) { activiteDAO.delete(id); }
+            @Override public void enregistrerLot(List<Activite> aMettreAJour, List<Activite> aCreer) {
+                activiteDAO.enregistrerLot(aMettreAJour, aCreer);
+            }
+            @Override public Map<Integer, List<Activite>> findByUsersAndDateRange(List<Integer> userIds,
+                                                                              LocalDateTime d, LocalDateTime f) {
+                return activiteDAO.findByUsersAndDateRange(userIds, d, f);
+            }
+            @Override public List<Integer> findUtilisateursByDateRange(LocalDateTime d, LocalDateTime f) {
+                return activiteDAO.findUtilisateursByDateRange(d, f);
+            }
+            @Override public long getVersion(int userId) { return activiteDAO.getVersion(userId); }
+        }
+
+        private final class ContraintesPrechargees implements ContrainteDAO {
+            @Override public List<ContrainteHoraire> findHoraireByUser(int userId) {
+                List<ContrainteHoraire> l = horaires.get(userId);
+                return l != null && contraintesAJour(userId) ? l : contrainteDAO.findHoraireByUser(userId);
+            }
+            @Override public List<ContraintePersonnelle> findPersonnelleByUser(int userId) {
+                List<ContraintePersonnelle> l = personnelles.get(userId);
+                return l != null && contraintesAJour(userId) ? l : contrainteDAO.findPersonnelleByUser(userId);
+            }
+            @Override public long getVersion(int userId) { return contrainteDAO.getVersion(userId); }
+            @Override public void saveHoraire(ContrainteHoraire c) { contrainteDAO.saveHoraire(c); }
+            @Override public void savePersonnelle(ContraintePersonnelle c) { contrainteDAO.savePersonnelle(c); }
+            @Override public void delete(int id) { contrainteDAO.delete(id); }
+            @Override public Map<Integer, List<ContrainteHoraire>> findHoraireByUsers(List<Integer> userIds) {
+                return contrainteDAO.findHoraireByUsers(userIds);
+            }
+            @Override public Map<Integer, List<ContraintePersonnelle>> findPersonnelleByUsers(List<Integer> userIds) {
+                return contrainteDAO.findPersonnelleByUsers(userIds);
+            }
+        }
+    }
+}
@@ -1,17 +1,16 @@
 package com.planning.service;
 
 import com.planning.model.Activite;
-import com.planning.model.ContrainteHoraire;
-import com.planning.model.ContraintePersonnelle;
 import com.planning.dao.ActiviteDAO;
 import com.planning.dao.ContrainteDAO;
 import com.planning.dao.impl.ActiviteDAOImpl;
 import com.planning.dao.impl.ContrainteDAOImpl;
+import com.planning.util.MinutesEpoch;
 
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Service d'optimisation de planning par Recuit Simulé (Simulated Annealing)
@@ -26,30 +25,41 @@ public class OptimisationService {
     private final ActiviteDAO activiteDAO;
     private final ContrainteDAO contrainteDAO;
     private final ConflitService conflitService;
-    private final Random random;
     
     // Paramètres du recuit simulé
-    private static final double TEMPERATURE_INITIALE = 100.0;
-    private static final double TEMPERATURE_MINIMALE = 0.1;
-    private static final double TAUX_REFROIDISSEMENT = 0.95;
-    private static final int ITERATIONS_PAR_TEMPERATURE = 50;
+    static final double TEMPERATURE_INITIALE = 100.0;
+    static final double TEMPERATURE_MINIMALE = 0.1;
+    static final double TAUX_REFROIDISSEMENT = 0.95;
+    static final int ITERATIONS_PAR_TEMPERATURE = 50;
+    /** Température de départ quand la solution initiale reprend un placement déjà optimisé */
+    static final double TEMPERATURE_REPRISE = 2.0;
+    
+    // Politique de choix du moteur (mode automatique)
+    static final int SEUIL_ACTIVITES_GLOUTON = 15;
+    static final double SEUIL_DENSITE_GLOUTON = 0.5;
     
     // Poids de la fonction objectif
-    private static final double POIDS_CONFLITS = 100.0;
-    private static final double POIDS_GAPS = 10.0;
-    private static final double POIDS_CONTRAINTES = 80.0;
-    private static final double POIDS_PRIORITES = 20.0;
+    static final double POIDS_CONFLITS = 100.0;
+    static final double POIDS_GAPS = 10.0;
+    static final double POIDS_CONTRAINTES = 80.0;
+    static final double POIDS_PRIORITES = 20.0;
+    static final double POIDS_FATIGUE = 1.0;
     
     public OptimisationService() {
-        this.activiteDAO = new ActiviteDAOImpl();
-        this.contrainteDAO = new ContrainteDAOImpl();
+        this(new ActiviteDAOImpl(), new ContrainteDAOImpl());
+    }
+    
+    /** DAO fournis (rejeu hors ligne d'une exécution enregistrée) */
+    OptimisationService(ActiviteDAO activiteDAO, ContrainteDAO contrainteDAO) {
+        this.activiteDAO = activiteDAO;
+        this.contrainteDAO = contrainteDAO;
         this.conflitService = new ConflitService();
-        this.random = new Random();
     }
     
     /**
      * Génère un planning optimisé pour une liste d'activités non planifiées
-     * @param activitesNonPlanifiees Liste d'activités sans dates définitives
+     * @param activitesNonPlanifiees Activités à placer (ensemble mobile); les autres activités
+     *        de la fenêtre restent fixes
      * @param utilisateurId ID de l'utilisateur
      * @param dateDebut Date de début de la période de planification
      * @param dateFin Date de fin de la période de planification
@@ -60,77 +70,290 @@ public class OptimisationService {
             int utilisateurId,
             LocalDateTime dateDebut,
             LocalDateTime dateFin) {
+        return genererPlanningOptimise(activitesNonPlanifiees, utilisateurId, dateDebut, dateFin, new OptionsOptimisation());
+    }
+    
+    /**
+     * Génère un planning optimisé avec des options d'exécution (nombre de chaînes, mode, pool)
+     * @param options Options d'exécution de la requête
+     * @return Liste des activités optimalement planifiées
+     */
+    public List<Activite> genererPlanningOptimise(
+            List<Activite> activitesNonPlanifiees,
+            int utilisateurId,
+            LocalDateTime dateDebut,
+            LocalDateTime dateFin,
+            OptionsOptimisation options) {
         
         if (activitesNonPlanifiees == null || activitesNonPlanifiees.isEmpty()) {
             return new ArrayList<>();
         }
         
-        // Charger les contraintes de l'utilisateur
-        List<ContrainteHoraire> contraintesHoraires = contrainteDAO.findHoraireByUser(utilisateurId);
-        List<ContraintePersonnelle> contraintesPersonnelles = contrainteDAO.findPersonnelleByUser(utilisateurId);
+        // Le budget couvre toute la requête, chargements compris
+        BudgetOptimisation budget = new BudgetOptimisation(options.getBudgetMillis(), options.getBudgetEvaluations());
+        options.getSuivi().demarrer(budget);
+        long debutNanos = System.nanoTime();
         
-        // Charger les activités déjà planifiées (fixes)
-        List<Activite> activitesFixes = activiteDAO.findByUserAndDateRange(utilisateurId, dateDebut, dateFin);
+        // Versions lues une seule fois, avant tout chargement: la clé du cache de résultats, les
+        // disponibilités et la reprise portent sur les mêmes données
+        long versionActivites = activiteDAO.getVersion(utilisateurId);
+        long versionContraintes = contrainteDAO.getVersion(utilisateurId);
+
+        // Requête identique déjà calculée, sans écriture depuis: résultat mémorisé (sauf mesure explicite)
+        ResultatEnCache.Cle cle = options.isInstrumentation() ? null : ResultatEnCache.cle(utilisateurId,
+            versionActivites, versionContraintes,
+            MinutesEpoch.de(dateDebut), MinutesEpoch.de(dateFin), options, activitesNonPlanifiees);
+        if (cle != null) {
+            List<Activite> memorise = ResultatEnCache.chercher(cle, options.getSuivi());
+            if (memorise != null) {
+                budget.terminer();
+                return memorise;
+            }
+        }
         
-        // Solution initiale: placement aléatoire
+        // Disponibilités compilées de l'utilisateur (reconstruites seulement si ses contraintes changent)
+        DisponibiliteCompilee disponibilite = DisponibiliteCompilee.pour(utilisateurId, versionContraintes, contrainteDAO);
+        
+        // Charger les activités déjà planifiées (fixes), hors activités à optimiser
+        List<Activite> activitesFixes = exclureMobiles(
+            activiteDAO.findByUserAndDateRange(utilisateurId, dateDebut, dateFin), activitesNonPlanifiees);
+        
+        // Démarrage à chaud: reprendre le dernier placement optimisé si au moins la moitié
+        // des activités y sont encore à leur place
+        long empreinteFixes = SolutionEnCache.empreinteFixes(activitesFixes);
+        int fenetreDebut = MinutesEpoch.de(dateDebut);
+        int fenetreFin = MinutesEpoch.de(dateFin);
+        SolutionEnCache reprise = options.isDemarrageAChaud()
+            ? SolutionEnCache.reprise(utilisateurId, versionContraintes, empreinteFixes)
+            : null;
+        if (reprise != null
+                && 2 * reprise.compterInchangees(activitesNonPlanifiees, fenetreDebut, fenetreFin) < activitesNonPlanifiees.size()) {
+            reprise = null;
+        }
+        options.getSuivi().setDemarrageAChaud(reprise != null);
+        long chargementNanos = System.nanoTime();
+        
+        // Solution initiale: placement glouton (autour du placement repris le cas échéant)
         List<Activite> solutionCourante = genererSolutionInitiale(
-            activitesNonPlanifiees, dateDebut, dateFin, activitesFixes, contraintesHoraires, contraintesPersonnelles
+            activitesNonPlanifiees, dateDebut, dateFin, activitesFixes, disponibilite, reprise
         );
         
-        double coutCourant = calculerCout(solutionCourante, activitesFixes, contraintesHoraires, contraintesPersonnelles);
-        
-        // Meilleure solution trouvée
-        List<Activite> meilleureSolution = copierSolution(solutionCourante);
-        double meilleurCout = coutCourant;
-        
-        // Recuit simulé
-        double temperature = TEMPERATURE_INITIALE;
-        
-        while (temperature > TEMPERATURE_MINIMALE) {
-            for (int iter = 0; iter < ITERATIONS_PAR_TEMPERATURE; iter++) {
-                // Générer une solution voisine
-                List<Activite> solutionVoisine = genererVoisin(solutionCourante, dateDebut, dateFin);
-                double coutVoisin = calculerCout(solutionVoisine, activitesFixes, contraintesHoraires, contraintesPersonnelles);
-                
-                // Critère d'acceptation
-                double delta = coutVoisin - coutCourant;
-                
-                if (delta < 0 || Math.exp(-delta / temperature) > random.nextDouble()) {
-                    // Accepter la solution voisine
-                    solutionCourante = solutionVoisine;
-                    coutCourant = coutVoisin;
-                    
-                    // Mettre à jour la meilleure solution
-                    if (coutCourant < meilleurCout) {
-                        meilleureSolution = copierSolution(solutionCourante);
-                        meilleurCout = coutCourant;
-                    }
-                }
+        // Encodage primitif partagé par toutes les chaînes (évaluation incrémentale)
+        ProblemePlanification probleme = encoderProbleme(
+            solutionCourante, dateDebut, dateFin, activitesFixes, disponibilite
+        );
+        if (options.isFatigue()) {
+            probleme = probleme.avecFatigue();
+        }
+        if (options.isInstrumentation()) {
+            probleme = probleme.avecChronometre(options.getSuivi().chronometrer());
+        }
+        // Générateur propre à l'exécution: graine imposée (exécution reproductible) ou tirée
+        long graine = options.getGraine() != null ? options.getGraine() : ThreadLocalRandom.current().nextLong();
+        options.getSuivi().setGraine(graine);
+        SplittableRandom aleaExecution = new SplittableRandom(graine);
+        
+        // Moteur: recuit simulé ou glouton + recherche locale (choix automatique par défaut)
+        double densite = densiteContraintes(disponibilite, activitesFixes, fenetreDebut, fenetreFin);
+        Solveur solveur = options.getDecomposition() != OptionsOptimisation.Decomposition.AUCUNE
+            ? new SolveurDecompose(options.getDecomposition().getMinutes(),
+                  taille -> choisirSolveur(options.pourBloc(), taille, densite))
+            : choisirSolveur(options, probleme.taille(), densite);
+        options.getSuivi().setMoteur(solveur.getNom());
+        long preparationNanos = System.nanoTime();
+        ResultatSolveur meilleure = solveur.resoudre(probleme, options, aleaExecution);
+        budget.terminer();
+        long rechercheNanos = System.nanoTime();
+        
+        // Ventilation du coût final par terme, phases et agrégats de l'exécution
+        options.getSuivi().setComposantesCout(
+            probleme.avecSolution(meilleure.getDebuts(), meilleure.getFins()).creerEvaluateur().composantes());
+        options.getSuivi().setPhases(chargementNanos - debutNanos, preparationNanos - chargementNanos,
+            rechercheNanos - preparationNanos);
+        MetriquesOptimisation.getInstance().executionTerminee(options.getSuivi());
+        
+        // Les activités ne sont matérialisées qu'une fois, pour la meilleure solution
+        List<Activite> resultat = construireSolution(solutionCourante, meilleure.getDebuts(), meilleure.getFins());
+        SolutionEnCache.enregistrer(utilisateurId, versionContraintes, empreinteFixes, fenetreDebut, fenetreFin, resultat);
+        // Une écriture pendant l'exécution: le résultat ne correspond peut-être plus à la clé
+        if (cle != null && !options.getSuivi().estAnnule()
+                && activiteDAO.getVersion(utilisateurId) == versionActivites
+                && contrainteDAO.getVersion(utilisateurId) == versionContraintes) {
+            ResultatEnCache.memoriser(cle, resultat, options.getSuivi());
+        }
+        if (EnregistrementOptimisation.actif()) {
+            enregistrerExecution(activitesNonPlanifiees, utilisateurId, dateDebut, dateFin, options,
+                versionContraintes, activitesFixes, disponibilite, reprise, resultat).ecrire();
+        }
+        return resultat;
+    }
+    
+    /**
+     * Entrées et résultat de l'exécution, pour un rejeu hors ligne (voir RejeuOptimisation)
+     */
+    private EnregistrementOptimisation enregistrerExecution(List<Activite> activites, int utilisateurId,
+            LocalDateTime dateDebut, LocalDateTime dateFin, OptionsOptimisation options, long versionContraintes,
+            List<Activite> activitesFixes, DisponibiliteCompilee disponibilite, SolutionEnCache reprise,
+            List<Activite> resultat) {
+        SuiviOptimisation suivi = options.getSuivi();
+        EnregistrementOptimisation e = new EnregistrementOptimisation();
+        e.utilisateurId = utilisateurId;
+        e.graine = suivi.getGraine();
+        e.dateDebut = dateDebut;
+        e.dateFin = dateFin;
+        e.options.setMoteur(options.getMoteur());
+        e.options.setNbChaines(options.getNbChaines());
+        e.options.setMode(options.getMode());
+        e.options.setParallelisme(options.getParallelisme());
+        e.options.setRefroidissement(options.getRefroidissement());
+        e.options.setDecomposition(options.getDecomposition());
+        e.options.setDemarrageAChaud(options.isDemarrageAChaud());
+        e.options.setFatigue(options.isFatigue());
+        e.options.setBudgetMillis(options.getBudgetMillis());
+        e.options.setBudgetEvaluations(options.getBudgetEvaluations());
+        e.versionContraintes = versionContraintes;
+        e.activites.addAll(activites);
+        e.fixes.addAll(activitesFixes);
+        e.horaires.addAll(disponibilite.getContraintesHoraires());
+        e.personnelles.addAll(disponibilite.getContraintesPersonnelles());
+        if (reprise != null) reprise.copierDans(e);
+        e.moteur = suivi.getMoteur();
+        e.dureeMillis = suivi.getBudget().getDureeMillis();
+        e.evaluations = suivi.getBudget().getEvaluations();
+        e.meilleurCout = suivi.getMeilleurCout();
+        e.empreinteResultat = EnregistrementOptimisation.empreinte(resultat);
+        return e;
+    }
+    
+    /**
+     * Activités fixes: activités chargées moins celles à optimiser (même id), en une passe.
+     * Une activité existante replanifiée est aussi chargée depuis la base: sans exclusion, elle
+     * chevaucherait sa propre copie stockée.
+     */
+    static List<Activite> exclureMobiles(List<Activite> chargees, List<Activite> mobiles) {
+        Set<Integer> ids = new HashSet<>();
+        for (Activite act : mobiles) {
+            if (act.getId() > 0) ids.add(act.getId());
+        }
+        if (ids.isEmpty()) return chargees;
+        List<Activite> fixes = new ArrayList<>(chargees.size());
+        for (Activite act : chargees) {
+            if (!ids.contains(act.getId())) fixes.add(act);
+        }
+        return fixes;
+    }
+    
+    /**
+     * Politique automatique: les listes courtes peu contraintes se contentent du glouton
+     * suivi d'une recherche locale, le reste passe par le recuit simulé (la LNS n'est retenue
+     * que sur demande: avec des voisins tirés dans le temps libre, le recuit la rattrape)
+     */
+    private Solveur choisirSolveur(OptionsOptimisation options, int nbActivites, double densite) {
+        switch (options.getMoteur()) {
+            case RECUIT: return new SolveurRecuit();
+            case GLOUTON: return new SolveurGlouton();
+            case LNS: return new SolveurLNS();
+            default:
+                boolean glouton = options.getNbChaines() <= 1
+                    && nbActivites <= SEUIL_ACTIVITES_GLOUTON
+                    && densite <= SEUIL_DENSITE_GLOUTON;
+                return glouton ? new SolveurGlouton() : new SolveurRecuit();
+        }
+    }
+    
+    /**
+     * Densité de contraintes de la fenêtre: part indisponible (contraintes) + part occupée par les fixes
+     */
+    private double densiteContraintes(DisponibiliteCompilee disponibilite, List<Activite> activitesFixes,
+                                      int fenetreDebut, int fenetreFin) {
+        if (fenetreFin <= fenetreDebut) return 1.0;
+        long occupees = 0;
+        for (Activite fixe : activitesFixes) {
+            if (fixe.getDebut() == null || fixe.getFin() == null) continue;
+            int debut = Math.max(fenetreDebut, MinutesEpoch.de(fixe.getDebut()));
+            int fin = Math.min(fenetreFin, MinutesEpoch.de(fixe.getFin()));
+            if (fin > debut) occupees += fin - debut;
+        }
+        return disponibilite.tauxIndisponibilite(fenetreDebut, fenetreFin)
+            + occupees / (double) (fenetreFin - fenetreDebut);
+    }
+    
+    /**
+     * Persiste un planning optimisé en n'écrivant que la différence avec l'état stocké:
+     * activités déplacées ou modifiées (id>0) et nouvelles activités, en un seul lot
+     * transactionnel. Les activités identiques en base ne sont pas réécrites.
+     * @throws IllegalStateException si l'écriture échoue (rien n'est alors écrit)
+     */
+    public BilanApplication appliquerPlanning(List<Activite> planning) {
+        List<Integer> ids = new ArrayList<>();
+        for (Activite act : planning) {
+            if (act.getId() > 0) ids.add(act.getId());
+        }
+        Map<Integer, Activite> stockees = new HashMap<>();
+        for (Activite act : activiteDAO.findByIds(ids)) stockees.put(act.getId(), act);
+
+        List<Activite> aMettreAJour = new ArrayList<>();
+        List<Activite> aCreer = new ArrayList<>();
+        for (Activite act : planning) {
+            if (act.getId() <= 0) {
+                aCreer.add(act);
+            } else if (!identiqueEnBase(act, stockees.get(act.getId()))) {
+                aMettreAJour.add(act);
             }
-            
-            // Refroidissement
-            temperature *= TAUX_REFROIDISSEMENT;
         }
-        
-        return meilleureSolution;
+        activiteDAO.enregistrerLot(aMettreAJour, aCreer);
+        return new BilanApplication(aMettreAJour.size(), aCreer.size(),
+            planning.size() - aMettreAJour.size() - aCreer.size());
+    }
+
+    /** Mêmes valeurs pour toutes les colonnes écrites par une mise à jour */
+    private static boolean identiqueEnBase(Activite act, Activite stockee) {
+        return stockee != null
+            && Objects.equals(act.getDebut(), stockee.getDebut())
+            && Objects.equals(act.getFin(), stockee.getFin())
+            && Objects.equals(act.getTitre(), stockee.getTitre())
+            && Objects.equals(act.getDescription(), stockee.getDescription())
+            && Objects.equals(act.getPriorite(), stockee.getPriorite())
+            && Objects.equals(act.getStatut(), stockee.getStatut())
+            && Objects.equals(act.getCategorieId(), stockee.getCategorieId());
     }
     
     /**
-     * Génère une solution initiale en plaçant les activités dans des créneaux valides
+     * Génère une solution initiale en plaçant les activités dans des créneaux valides.
+     * Les activités encore à leur place dans {@code reprise} (peut être null) y restent.
      */
     private List<Activite> genererSolutionInitiale(
             List<Activite> activites,
             LocalDateTime debut,
             LocalDateTime fin,
             List<Activite> activitesFixes,
-            List<ContrainteHoraire> contraintesHoraires,
-            List<ContraintePersonnelle> contraintesPersonnelles) {
+            DisponibiliteCompilee disponibilite,
+            SolutionEnCache reprise) {
         
         List<Activite> solution = new ArrayList<>();
-        LocalDateTime curseur = debut;
+        int curseur = MinutesEpoch.de(debut);
+        int limite = MinutesEpoch.de(fin);
+        
+        // Temps occupé commun aux activités fixes et aux activités déjà placées
+        CalendrierOccupe occupe = new CalendrierOccupe();
+        for (Activite fixe : activitesFixes) {
+            if (fixe.getDebut() == null || fixe.getFin() == null) continue;
+            occupe.occuper(MinutesEpoch.de(fixe.getDebut()), MinutesEpoch.de(fixe.getFin()));
+        }
+        
+        // Reprendre telles quelles les activités du placement précédent
+        List<Activite> aPlacer = new ArrayList<>(activites.size());
+        for (Activite act : activites) {
+            if (reprise != null && reprise.estInchangee(act, curseur, limite)) {
+                solution.add(copierActivite(act));
+                occupe.occuper(MinutesEpoch.de(act.getDebut()), MinutesEpoch.de(act.getFin()));
+            } else {
+                aPlacer.add(act);
+            }
+        }
         
         // Trier par priorité (URGENTE > HAUTE > NORMALE > BASSE)
-        List<Activite> activitesTri = new ArrayList<>(activites);
+        List<Activite> activitesTri = new ArrayList<>(aPlacer);
         activitesTri.sort((a1, a2) -> comparerPriorites(a2.getPriorite(), a1.getPriorite()));
         
         for (Activite act : activitesTri) {
@@ -138,18 +361,18 @@ public class OptimisationService {
             Duration duree = (act.getDebut() != null && act.getFin() != null) 
                 ? Duration.between(act.getDebut(), act.getFin())
                 : Duration.ofHours(2);
+            int dureeMinutes = (int) duree.toMinutes();
             
             // Chercher un créneau valide
-            LocalDateTime creneauDebut = trouverCreneauValide(
-                curseur, fin, duree, activitesFixes, solution, contraintesHoraires, contraintesPersonnelles
-            );
+            int creneauDebut = occupe.prochainCreneau(curseur, dureeMinutes, limite, disponibilite);
             
-            if (creneauDebut != null) {
+            if (creneauDebut != CalendrierOccupe.AUCUN) {
                 Activite nouvAct = copierActivite(act);
-                nouvAct.setDebut(creneauDebut);
-                nouvAct.setFin(creneauDebut.plus(duree));
+                nouvAct.setDebut(MinutesEpoch.versDateTime(creneauDebut));
+                nouvAct.setFin(MinutesEpoch.versDateTime(creneauDebut + dureeMinutes));
                 solution.add(nouvAct);
-                curseur = nouvAct.getFin();
+                occupe.occuper(creneauDebut, creneauDebut + dureeMinutes);
+                curseur = creneauDebut + dureeMinutes;
             }
         }
         
@@ -157,284 +380,46 @@ public class OptimisationService {
     }
     
     /**
-     * Trouve un créneau valide pour placer une activité
+     * Encode la solution initiale, les activités fixes et les contraintes pour le recuit
      */
-    private LocalDateTime trouverCreneauValide(
-            LocalDateTime debut,
-            LocalDateTime fin,
-            Duration duree,
-            List<Activite> activitesFixes,
+    private ProblemePlanification encoderProbleme(
             List<Activite> solution,
-            List<ContrainteHoraire> contraintesHoraires,
-            List<ContraintePersonnelle> contraintesPersonnelles) {
-        
-        LocalDateTime curseur = debut;
-        
-        while (curseur.plus(duree).isBefore(fin) || curseur.plus(duree).isEqual(fin)) {
-            LocalDateTime finProposee = curseur.plus(duree);
-            
-            // Vérifier absence de chevauchement avec activités fixes
-            boolean chevauche = false;
-            for (Activite fixe : activitesFixes) {
-                if (seChevauchent(curseur, finProposee, fixe.getDebut(), fixe.getFin())) {
-                    chevauche = true;
-                    curseur = fixe.getFin(); // Sauter après cette activité
-                    break;
-                }
-            }
-            if (chevauche) continue;
-            
-            // Vérifier absence de chevauchement avec solution partielle
-            for (Activite planifie : solution) {
-                if (seChevauchent(curseur, finProposee, planifie.getDebut(), planifie.getFin())) {
-                    chevauche = true;
-                    curseur = planifie.getFin();
-                    break;
-                }
-            }
-            if (chevauche) continue;
-            
-            // Vérifier contraintes horaires
-            if (!respecteContraintesHoraires(curseur, finProposee, contraintesHoraires)) {
-                curseur = curseur.plusHours(1);
-                continue;
-            }
-            
-            // Vérifier contraintes personnelles
-            if (!respecteContraintesPersonnelles(curseur, finProposee, contraintesPersonnelles)) {
-                curseur = curseur.plusHours(1);
-                continue;
-            }
-            
-            // Créneau valide trouvé
-            return curseur;
+            LocalDateTime dateDebut,
+            LocalDateTime dateFin,
+            List<Activite> activitesFixes,
+            DisponibiliteCompilee disponibilite) {
+        
+        int n = solution.size();
+        int[] debuts = new int[n];
+        int[] fins = new int[n];
+        byte[] poids = new byte[n];
+        for (int i = 0; i < n; i++) {
+            Activite act = solution.get(i);
+            debuts[i] = MinutesEpoch.de(act.getDebut());
+            fins[i] = MinutesEpoch.de(act.getFin());
+            poids[i] = (byte) getPoidsPriorite(act.getPriorite());
         }
         
-        // Aucun créneau trouvé
-        return null;
-    }
-    
-    /**
-     * Génère une solution voisine en perturbant légèrement la solution courante
-     */
-    private List<Activite> genererVoisin(List<Activite> solution, LocalDateTime debut, LocalDateTime fin) {
-        if (solution.isEmpty()) return solution;
-        
-        List<Activite> voisin = copierSolution(solution);
-        
-        // Choisir aléatoirement un type de perturbation
-        int typePerturb = random.nextInt(3);
-        
-        switch (typePerturb) {
-            case 0: // Décaler une activité
-                int idx = random.nextInt(voisin.size());
-                Activite act = voisin.get(idx);
-                int decalageHeures = random.nextInt(5) - 2; // -2 à +2 heures
-                LocalDateTime nouveauDebut = act.getDebut().plusHours(decalageHeures);
-                if (nouveauDebut.isAfter(debut) && nouveauDebut.isBefore(fin)) {
-                    Duration duree = Duration.between(act.getDebut(), act.getFin());
-                    act.setDebut(nouveauDebut);
-                    act.setFin(nouveauDebut.plus(duree));
-                }
-                break;
-                
-            case 1: // Échanger deux activités
-                if (voisin.size() >= 2) {
-                    int idx1 = random.nextInt(voisin.size());
-                    int idx2 = random.nextInt(voisin.size());
-                    if (idx1 != idx2) {
-                        Activite a1 = voisin.get(idx1);
-                        Activite a2 = voisin.get(idx2);
-                        
-                        LocalDateTime debut1 = a1.getDebut();
-                        LocalDateTime fin1 = a1.getFin();
-                        
-                        Duration duree1 = Duration.between(a1.getDebut(), a1.getFin());
-                        Duration duree2 = Duration.between(a2.getDebut(), a2.getFin());
-                        
-                        a1.setDebut(a2.getDebut());
-                        a1.setFin(a2.getDebut().plus(duree1));
-                        
-                        a2.setDebut(debut1);
-                        a2.setFin(debut1.plus(duree2));
-                    }
-                }
-                break;
-                
-            case 2: // Changer la durée d'une activité
-                int idx3 = random.nextInt(voisin.size());
-                Activite act3 = voisin.get(idx3);
-                int changementMinutes = (random.nextInt(7) - 3) * 15; // -45 à +45 min par paliers de 15
-                LocalDateTime nouvelleFin = act3.getFin().plusMinutes(changementMinutes);
-                if (nouvelleFin.isAfter(act3.getDebut()) && nouvelleFin.isBefore(fin)) {
-                    act3.setFin(nouvelleFin);
-                }
-                break;
+        int[] fixesDebut = new int[activitesFixes.size()];
+        int[] fixesFin = new int[activitesFixes.size()];
+        for (int k = 0; k < activitesFixes.size(); k++) {
+            fixesDebut[k] = MinutesEpoch.de(activitesFixes.get(k).getDebut());
+            fixesFin[k] = MinutesEpoch.de(activitesFixes.get(k).getFin());
         }
         
-        return voisin;
+        return new ProblemePlanification(debuts, fins, poids, fixesDebut, fixesFin,
+                MinutesEpoch.de(dateDebut), MinutesEpoch.de(dateFin), disponibilite);
     }
     
     /**
-     * Calcule le coût d'une solution (fonction objectif multi-critères)
-     * Plus le coût est bas, meilleure est la solution
+     * Reporte les créneaux encodés sur les activités de la solution (propres à cette exécution)
      */
-    private double calculerCout(
-            List<Activite> solution,
-            List<Activite> activitesFixes,
-            List<ContrainteHoraire> contraintesHoraires,
-            List<ContraintePersonnelle> contraintesPersonnelles) {
-        
-        double cout = 0.0;
-        
-        // 1. Pénalité pour les chevauchements
-        int nbChevauchements = compterChevauchements(solution, activitesFixes);
-        cout += nbChevauchements * POIDS_CONFLITS;
-        
-        // 2. Pénalité pour les temps morts (gaps)
-        double tempsMorts = calculerTempsMorts(solution);
-        cout += tempsMorts * POIDS_GAPS;
-        
-        // 3. Pénalité pour violations de contraintes
-        int nbViolationsContraintes = compterViolationsContraintes(solution, contraintesHoraires, contraintesPersonnelles);
-        cout += nbViolationsContraintes * POIDS_CONTRAINTES;
-        
-        // 4. Pénalité pour mauvais placement des priorités (hautes priorités doivent être tôt)
-        double penalitePriorites = calculerPenalitePriorites(solution);
-        cout += penalitePriorites * POIDS_PRIORITES;
-        
-        return cout;
-    }
-    
-    private int compterChevauchements(List<Activite> solution, List<Activite> activitesFixes) {
-        int count = 0;
-        
-        // Chevauchements internes
+    private List<Activite> construireSolution(List<Activite> solution, int[] debuts, int[] fins) {
         for (int i = 0; i < solution.size(); i++) {
-            for (int j = i + 1; j < solution.size(); j++) {
-                if (seChevauchent(solution.get(i).getDebut(), solution.get(i).getFin(),
-                                  solution.get(j).getDebut(), solution.get(j).getFin())) {
-                    count++;
-                }
-            }
-        }
-        
-        // Chevauchements avec activités fixes
-        for (Activite act : solution) {
-            for (Activite fixe : activitesFixes) {
-                if (seChevauchent(act.getDebut(), act.getFin(), fixe.getDebut(), fixe.getFin())) {
-                    count++;
-                }
-            }
-        }
-        
-        return count;
-    }
-    
-    private double calculerTempsMorts(List<Activite> solution) {
-        if (solution.size() < 2) return 0.0;
-        
-        // Trier par date de début
-        List<Activite> triees = new ArrayList<>(solution);
-        triees.sort(Comparator.comparing(Activite::getDebut));
-        
-        double tempsMortsTotal = 0.0;
-        for (int i = 0; i < triees.size() - 1; i++) {
-            LocalDateTime finCourante = triees.get(i).getFin();
-            LocalDateTime debutSuivante = triees.get(i + 1).getDebut();
-            
-            if (debutSuivante.isAfter(finCourante)) {
-                long minutes = Duration.between(finCourante, debutSuivante).toMinutes();
-                // Gaps < 30 min sont acceptables (pause), au-delà c'est pénalisé
-                if (minutes > 30) {
-                    tempsMortsTotal += (minutes - 30) / 60.0; // en heures
-                }
-            }
-        }
-        
-        return tempsMortsTotal;
-    }
-    
-    private int compterViolationsContraintes(
-            List<Activite> solution,
-            List<ContrainteHoraire> contraintesHoraires,
-            List<ContraintePersonnelle> contraintesPersonnelles) {
-        
-        int violations = 0;
-        
-        for (Activite act : solution) {
-            if (!respecteContraintesHoraires(act.getDebut(), act.getFin(), contraintesHoraires)) {
-                violations++;
-            }
-            if (!respecteContraintesPersonnelles(act.getDebut(), act.getFin(), contraintesPersonnelles)) {
-                violations++;
-            }
-        }
-        
-        return violations;
-    }
-    
-    private double calculerPenalitePriorites(List<Activite> solution) {
-        double penalite = 0.0;
-        
-        // Trier par date
-        List<Activite> triees = new ArrayList<>(solution);
-        triees.sort(Comparator.comparing(Activite::getDebut));
-        
-        // Les activités URGENTES/HAUTES devraient être en début de planning
-        for (int i = 0; i < triees.size(); i++) {
-            Activite act = triees.get(i);
-            int poidsPriorite = getPoidsPriorite(act.getPriorite());
-            
-            // Plus l'activité importante est loin dans le planning, plus c'est pénalisé
-            penalite += (i / (double) triees.size()) * poidsPriorite;
-        }
-        
-        return penalite;
-    }
-    
-    private boolean seChevauchent(LocalDateTime debut1, LocalDateTime fin1, LocalDateTime debut2, LocalDateTime fin2) {
-        return debut1.isBefore(fin2) && debut2.isBefore(fin1);
-    }
-    
-    private boolean respecteContraintesHoraires(
-            LocalDateTime debut,
-            LocalDateTime fin,
-            List<ContrainteHoraire> contraintes) {
-        // Utiliser le même format de jour que ConflitService: libellé FR en majuscules
-        java.time.DayOfWeek dow = debut.getDayOfWeek();
-        String jourFr = dow.getDisplayName(java.time.format.TextStyle.FULL, java.util.Locale.FRENCH).toUpperCase();
-
-        for (ContrainteHoraire contrainte : contraintes) {
-            if ("INDISPONIBLE".equals(contrainte.getTypeContrainte())) {
-                if (jourFr.equals(contrainte.getJourSemaine())) {
-                    LocalTime heureDebut = debut.toLocalTime();
-                    LocalTime heureFin = fin.toLocalTime();
-                    if (seChevauchenTime(heureDebut, heureFin,
-                            contrainte.getHeureDebut(), contrainte.getHeureFin())) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
-    }
-    
-    private boolean respecteContraintesPersonnelles(
-            LocalDateTime debut,
-            LocalDateTime fin,
-            List<ContraintePersonnelle> contraintes) {
-        
-        for (ContraintePersonnelle contrainte : contraintes) {
-            if (seChevauchent(debut, fin, contrainte.getDateDebut(), contrainte.getDateFin())) {
-                return false;
-            }
+            solution.get(i).setDebut(MinutesEpoch.versDateTime(debuts[i]));
+            solution.get(i).setFin(MinutesEpoch.versDateTime(fins[i]));
         }
-        return true;
-    }
-    
-    private boolean seChevauchenTime(LocalTime debut1, LocalTime fin1, LocalTime debut2, LocalTime fin2) {
-        return debut1.isBefore(fin2) && debut2.isBefore(fin1);
+        return solution;
     }
     
     private int comparerPriorites(String p1, String p2) {
@@ -452,14 +437,6 @@ public class OptimisationService {
         }
     }
     
-    private List<Activite> copierSolution(List<Activite> solution) {
-        List<Activite> copie = new ArrayList<>();
-        for (Activite act : solution) {
-            copie.add(copierActivite(act));
-        }
-        return copie;
-    }
-    
     private Activite copierActivite(Activite source) {
         Activite copie = new Activite();
         copie.setId(source.getId());
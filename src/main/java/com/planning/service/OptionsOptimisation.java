@@ -0,0 +1,121 @@
+package com.planning.service;
+
+import com.planning.util.MinutesEpoch;
+
+/**
+ * Options d'exécution d'une optimisation (par requête)
+ */
+public class OptionsOptimisation {
+
+    public enum ModeParallele {
+        /** Chaînes indépendantes (multi-départ) à températures initiales échelonnées */
+        INDEPENDANT,
+        /** Échange de répliques (parallel tempering) entre températures voisines */
+        ECHANGE
+    }
+
+    public enum Refroidissement {
+        /** Schéma historique: ×0.95 tous les 50 voisins jusqu'à la température minimale */
+        GEOMETRIQUE,
+        /** Schéma piloté par le taux d'acceptation, avec réchauffes (voir RefroidissementAdaptatif) */
+        ADAPTATIF
+    }
+
+    public enum Moteur {
+        /** Choix selon le nombre d'activités et la densité de contraintes */
+        AUTO,
+        RECUIT,
+        /** Placement glouton par priorité + recherche locale */
+        GLOUTON,
+        /** Destruction / réparation de blocs d'activités avec liste tabou (calendriers denses) */
+        LNS
+    }
+
+    public enum Decomposition {
+        /** Horizon optimisé d'un seul tenant */
+        AUCUNE(0),
+        /** Un bloc par jour calendaire */
+        JOUR(MinutesEpoch.MINUTES_PAR_JOUR),
+        /** Deux blocs par semaine (lundi 00:00 - jeudi 12:00, jeudi 12:00 - lundi 00:00) */
+        DEMI_SEMAINE(MinutesEpoch.MINUTES_PAR_SEMAINE / 2);
+
+        private final int minutes;
+
+        Decomposition(int minutes) { this.minutes = minutes; }
+
+        public int getMinutes() { return minutes; }
+    }
+
+    private int nbChaines = 1;
+    private ModeParallele mode = ModeParallele.ECHANGE;
+    private int parallelisme = 0; // 0 = pool commun
+    private Refroidissement refroidissement = Refroidissement.GEOMETRIQUE;
+    private Moteur moteur = Moteur.AUTO;
+    private Decomposition decomposition = Decomposition.AUCUNE;
+    private SuiviOptimisation suivi = new SuiviOptimisation();
+    private boolean demarrageAChaud = true;
+    private long budgetMillis = 0;       // 0 = pas d'échéance
+    private long budgetEvaluations = 0;  // 0 = pas de limite d'évaluations
+    private Long graine;                 // null = tirée au hasard
+    private boolean instrumentation = false;
+    private boolean fatigue = false;
+
+    public OptionsOptimisation() {}
+
+    public int getNbChaines() { return nbChaines; }
+    public void setNbChaines(int nbChaines) { this.nbChaines = nbChaines; }
+
+    public ModeParallele getMode() { return mode; }
+    public void setMode(ModeParallele mode) { this.mode = mode; }
+
+    public int getParallelisme() { return parallelisme; }
+    public void setParallelisme(int parallelisme) { this.parallelisme = parallelisme; }
+
+    public Refroidissement getRefroidissement() { return refroidissement; }
+    public void setRefroidissement(Refroidissement refroidissement) { this.refroidissement = refroidissement; }
+
+    public Moteur getMoteur() { return moteur; }
+    public void setMoteur(Moteur moteur) { this.moteur = moteur; }
+
+    public Decomposition getDecomposition() { return decomposition; }
+    public void setDecomposition(Decomposition decomposition) { this.decomposition = decomposition; }
+
+    /** Reprendre le dernier placement optimisé de l'utilisateur s'il est encore valide */
+    public boolean isDemarrageAChaud() { return demarrageAChaud; }
+    public void setDemarrageAChaud(boolean demarrageAChaud) { this.demarrageAChaud = demarrageAChaud; }
+
+    public long getBudgetMillis() { return budgetMillis; }
+    public void setBudgetMillis(long budgetMillis) { this.budgetMillis = budgetMillis; }
+
+    public long getBudgetEvaluations() { return budgetEvaluations; }
+    public void setBudgetEvaluations(long budgetEvaluations) { this.budgetEvaluations = budgetEvaluations; }
+
+    /** Graine du générateur aléatoire: même graine et mêmes entrées, même résultat (hors budget de temps) */
+    public Long getGraine() { return graine; }
+    public void setGraine(Long graine) { this.graine = graine; }
+
+    /** Mesurer le temps par terme du coût (quelques appels à System.nanoTime par évaluation) */
+    public boolean isInstrumentation() { return instrumentation; }
+    public void setInstrumentation(boolean instrumentation) { this.instrumentation = instrumentation; }
+
+    /** Ajouter au coût le terme de fatigue par jour (nuit, débuts matinaux, blocs et journées trop longs) */
+    public boolean isFatigue() { return fatigue; }
+    public void setFatigue(boolean fatigue) { this.fatigue = fatigue; }
+
+    public SuiviOptimisation getSuivi() { return suivi; }
+    public void setSuivi(SuiviOptimisation suivi) { this.suivi = suivi; }
+
+    /**
+     * Options d'un bloc de la décomposition: une chaîne par bloc (le parallélisme se fait entre
+     * blocs), suivi privé qui partage l'annulation et le budget de l'exécution complète
+     */
+    OptionsOptimisation pourBloc() {
+        OptionsOptimisation bloc = new OptionsOptimisation();
+        bloc.nbChaines = 1;
+        bloc.refroidissement = refroidissement;
+        bloc.moteur = moteur;
+        bloc.demarrageAChaud = demarrageAChaud;
+        bloc.suivi = suivi.pourBloc();
+        return bloc;
+    }
+}
@@ -0,0 +1,130 @@
+package com.planning.service;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Données encodées d'un problème de planification, partagées en lecture seule
+ * par toutes les chaînes de recuit d'une même exécution.
+ * Les créneaux sont exprimés en minutes depuis l'epoch.
+ */
+class ProblemePlanification {
+    private final int[] debuts;
+    private final int[] fins;
+    private final byte[] poids;
+    private final int[] fixesDebut;
+    private final int[] fixesFin;
+    private final int fenetreDebut;
+    private final int fenetreFin;
+    private final IntBinaryOperator violations;
+    private final CreneauxLibres libres;
+    private final int normalisationRangs;
+    private final ChronometreTermes chronometre;
+    private final FatigueJournaliere fatigue;
+
+    ProblemePlanification(int[] debuts, int[] fins, byte[] poids,
+                          int[] fixesDebut, int[] fixesFin,
+                          int fenetreDebut, int fenetreFin,
+                          IntBinaryOperator violations) {
+        this(debuts, fins, poids, fixesDebut, fixesFin, fenetreDebut, fenetreFin, violations,
+            CreneauxLibres.fenetre(fenetreDebut, fenetreFin), debuts.length, null, null);
+    }
+
+    ProblemePlanification(int[] debuts, int[] fins, byte[] poids,
+                          int[] fixesDebut, int[] fixesFin,
+                          int fenetreDebut, int fenetreFin,
+                          DisponibiliteCompilee disponibilite) {
+        this(debuts, fins, poids, fixesDebut, fixesFin, fenetreDebut, fenetreFin, disponibilite::violations,
+            CreneauxLibres.calculer(disponibilite, fixesDebut, fixesFin, fenetreDebut, fenetreFin), debuts.length,
+            null, null);
+    }
+
+    private ProblemePlanification(int[] debuts, int[] fins, byte[] poids,
+                                  int[] fixesDebut, int[] fixesFin,
+                                  int fenetreDebut, int fenetreFin,
+                                  IntBinaryOperator violations, CreneauxLibres libres, int normalisationRangs,
+                                  ChronometreTermes chronometre, FatigueJournaliere fatigue) {
+        this.debuts = debuts;
+        this.fins = fins;
+        this.poids = poids;
+        this.fixesDebut = fixesDebut;
+        this.fixesFin = fixesFin;
+        this.fenetreDebut = fenetreDebut;
+        this.fenetreFin = fenetreFin;
+        this.violations = violations;
+        this.libres = libres;
+        this.normalisationRangs = normalisationRangs;
+        this.chronometre = chronometre;
+        this.fatigue = fatigue;
+    }
+
+    int taille() { return debuts.length; }
+    int getFenetreDebut() { return fenetreDebut; }
+    int getFenetreFin() { return fenetreFin; }
+    /** Temps libre de la fenêtre (hors contraintes et activités fixes) */
+    CreneauxLibres getLibres() { return libres; }
+
+    /**
+     * Sous-problème restreint aux activités {@code indices} et à la fenêtre [debut, fin).
+     * Seules les activités fixes pouvant être atteintes depuis la fenêtre sont conservées.
+     * Le terme de priorités garde la normalisation du problème complet: à un décalage constant
+     * près, le coût du sous-problème est alors celui du problème complet restreint au bloc.
+     */
+    ProblemePlanification sousProbleme(int[] indices, int debut, int fin) {
+        int n = indices.length;
+        int[] sousDebuts = new int[n];
+        int[] sousFins = new int[n];
+        byte[] sousPoids = new byte[n];
+        int portee = fin;
+        for (int k = 0; k < n; k++) {
+            int i = indices[k];
+            sousDebuts[k] = debuts[i];
+            sousFins[k] = fins[i];
+            sousPoids[k] = poids[i];
+            portee = Math.max(portee, fin + (fins[i] - debuts[i]));
+        }
+        int m = 0;
+        int[] sousFixesDebut = new int[fixesDebut.length];
+        int[] sousFixesFin = new int[fixesFin.length];
+        for (int k = 0; k < fixesDebut.length; k++) {
+            if (fixesFin[k] > debut && fixesDebut[k] < portee) {
+                sousFixesDebut[m] = fixesDebut[k];
+                sousFixesFin[m] = fixesFin[k];
+                m++;
+            }
+        }
+        sousFixesDebut = Arrays.copyOf(sousFixesDebut, m);
+        sousFixesFin = Arrays.copyOf(sousFixesFin, m);
+        return new ProblemePlanification(sousDebuts, sousFins, sousPoids,
+            sousFixesDebut, sousFixesFin, debut, fin, violations,
+            libres, normalisationRangs, chronometre,
+            fatigue != null ? new FatigueJournaliere(debut, fin, sousFixesDebut, sousFixesFin) : null);
+    }
+
+    /** Même problème, à partir d'une autre solution initiale */
+    ProblemePlanification avecSolution(int[] nouveauxDebuts, int[] nouvellesFins) {
+        return new ProblemePlanification(nouveauxDebuts, nouvellesFins, poids, fixesDebut, fixesFin,
+            fenetreDebut, fenetreFin, violations, libres, normalisationRangs, chronometre, fatigue);
+    }
+
+    /** Même problème, dont les évaluateurs chronomètrent chaque terme du coût */
+    ProblemePlanification avecChronometre(ChronometreTermes chronometre) {
+        return new ProblemePlanification(debuts, fins, poids, fixesDebut, fixesFin,
+            fenetreDebut, fenetreFin, violations, libres, normalisationRangs, chronometre, fatigue);
+    }
+
+    /** Même problème, avec le terme de fatigue par jour dans le coût */
+    ProblemePlanification avecFatigue() {
+        return new ProblemePlanification(debuts, fins, poids, fixesDebut, fixesFin,
+            fenetreDebut, fenetreFin, violations, libres, normalisationRangs, chronometre,
+            new FatigueJournaliere(fenetreDebut, fenetreFin, fixesDebut, fixesFin));
+    }
+
+    int getDebut(int i) { return debuts[i]; }
+
+    /** Crée un évaluateur sur une copie privée de la solution initiale */
+    EvaluateurCout creerEvaluateur() {
+        return new EvaluateurCout(debuts.clone(), fins.clone(), poids, fixesDebut, fixesFin, violations,
+            normalisationRangs, chronometre, fatigue != null ? fatigue.copie() : null);
+    }
+}
@@ -0,0 +1,94 @@
+package com.planning.service;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bilan d'une replanification par lots: débit, latences par utilisateur (optimisation et
+ * écriture comprises), écritures effectuées et échecs. Alimenté concurrentiellement par les
+ * threads du lot, puis figé par {@link #terminer()}.
+ */
+public class RapportLot {
+
+    private final LocalDateTime fenetreDebut;
+    private final LocalDateTime fenetreFin;
+    private final long debutNanos = System.nanoTime();
+    private long dureeNanos = -1;
+
+    private long[] latences = new long[64];
+    private int reussis;
+    private int activites;
+    private int modifiees;
+    private int creees;
+    private int inchangees;
+    private final Map<Integer, String> echecs = new LinkedHashMap<>();
+
+    RapportLot(LocalDateTime fenetreDebut, LocalDateTime fenetreFin) {
+        this.fenetreDebut = fenetreDebut;
+        this.fenetreFin = fenetreFin;
+    }
+
+    synchronized void reussite(long latenceNanos, int nombreActivites, BilanApplication bilan) {
+        ajouterLatence(latenceNanos);
+        reussis++;
+        activites += nombreActivites;
+        if (bilan != null) {
+            modifiees += bilan.getModifiees();
+            creees += bilan.getCreees();
+            inchangees += bilan.getInchangees();
+        }
+    }
+
+    synchronized void echec(int utilisateurId, long latenceNanos, String message) {
+        ajouterLatence(latenceNanos);
+        echecs.put(utilisateurId, message != null ? message : "erreur inconnue");
+    }
+
+    synchronized void terminer() {
+        dureeNanos = System.nanoTime() - debutNanos;
+        int n = reussis + echecs.size();
+        latences = Arrays.copyOf(latences, n);
+        Arrays.sort(latences);
+    }
+
+    private void ajouterLatence(long nanos) {
+        int n = reussis + echecs.size();
+        if (n == latences.length) latences = Arrays.copyOf(latences, 2 * n);
+        latences[n] = nanos;
+    }
+
+    public LocalDateTime getFenetreDebut() { return fenetreDebut; }
+    public LocalDateTime getFenetreFin() { return fenetreFin; }
+    public synchronized boolean estTermine() { return dureeNanos >= 0; }
+    public synchronized int getUtilisateurs() { return reussis + echecs.size(); }
+    public synchronized int getReussis() { return reussis; }
+    public synchronized int getActivites() { return activites; }
+    public synchronized int getModifiees() { return modifiees; }
+    public synchronized int getCreees() { return creees; }
+    public synchronized int getInchangees() { return inchangees; }
+    public synchronized Map<Integer, String> getEchecs() { return Collections.unmodifiableMap(new LinkedHashMap<>(echecs)); }
+
+    /** Durée totale (en cours si le lot n'est pas terminé) */
+    public synchronized long getDureeMillis() {
+        return (dureeNanos >= 0 ? dureeNanos : System.nanoTime() - debutNanos) / 1_000_000;
+    }
+
+    /** Utilisateurs traités par seconde */
+    public synchronized double getDebit() {
+        long ms = getDureeMillis();
+        return ms > 0 ? getUtilisateurs() * 1000.0 / ms : 0.0;
+    }
+
+    /**
+     * Latence par utilisateur au percentile p (0 à 100), en millisecondes; 0 sans utilisateur.
+     * Disponible une fois le lot terminé.
+     */
+    public synchronized double getLatenceMillis(double p) {
+        if (dureeNanos < 0 || latences.length == 0) return 0.0;
+        int rang = (int) Math.ceil(p / 100.0 * latences.length) - 1;
+        return latences[Math.max(0, Math.min(latences.length - 1, rang))] / 1e6;
+    }
+}
@@ -0,0 +1,179 @@
+package com.planning.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Recuit simulé multi-cœurs: K chaînes exécutées sur un ForkJoinPool,
+ * chacune avec son propre SplittableRandom. Le résultat est la meilleure
+ * solution toutes chaînes confondues.
+ */
+class RecuitParallele {
+
+    /** Facteur entre les températures initiales de deux chaînes indépendantes consécutives */
+    private static final double ECHELONNEMENT_INDEPENDANT = 0.5;
+
+    private final ProblemePlanification probleme;
+    private final OptionsOptimisation options;
+    private final SplittableRandom random;
+    private final double temperatureInitiale;
+
+    RecuitParallele(ProblemePlanification probleme, OptionsOptimisation options, SplittableRandom random,
+                    double temperatureInitiale) {
+        this.probleme = probleme;
+        this.options = options;
+        this.random = random;
+        this.temperatureInitiale = temperatureInitiale;
+    }
+
+    /**
+     * Exécute les chaînes et retourne celle qui détient la meilleure solution
+     */
+    ChaineRecuit executer() {
+        int k = Math.max(1, options.getNbChaines());
+        List<ChaineRecuit> chaines = new ArrayList<>(k);
+        for (int c = 0; c < k; c++) {
+            chaines.add(new ChaineRecuit(probleme, random.split(), options.getSuivi()));
+        }
+
+        ForkJoinPool pool = options.getParallelisme() > 0
+            ? new ForkJoinPool(options.getParallelisme())
+            : ForkJoinPool.commonPool();
+        try {
+            if (options.getMode() == OptionsOptimisation.ModeParallele.INDEPENDANT) {
+                executerIndependant(pool, chaines);
+            } else {
+                executerEchange(pool, chaines);
+            }
+        } finally {
+            if (pool != ForkJoinPool.commonPool()) pool.shutdown();
+        }
+
+        ChaineRecuit meilleure = chaines.get(0);
+        for (ChaineRecuit chaine : chaines) {
+            if (chaine.getMeilleurCout() < meilleure.getMeilleurCout()) meilleure = chaine;
+        }
+        return meilleure;
+    }
+
+    /**
+     * Multi-départ: chaque chaîne déroule le schéma complet depuis une température initiale
+     * échelonnée (les chaînes froides intensifient, les chaudes explorent)
+     */
+    private void executerIndependant(ForkJoinPool pool, List<ChaineRecuit> chaines) {
+        List<Callable<Void>> taches = new ArrayList<>(chaines.size());
+        for (int c = 0; c < chaines.size(); c++) {
+            ChaineRecuit chaine = chaines.get(c);
+            double temperatureChaine = temperatureInitiale * Math.pow(ECHELONNEMENT_INDEPENDANT, c);
+            options.getSuivi().prevoirPaliers(ChaineRecuit.nombrePaliers(temperatureChaine,
+                    OptimisationService.TEMPERATURE_MINIMALE, OptimisationService.TAUX_REFROIDISSEMENT));
+            taches.add(() -> {
+                chaine.recuire(temperatureChaine, OptimisationService.TEMPERATURE_MINIMALE,
+                        OptimisationService.TAUX_REFROIDISSEMENT, OptimisationService.ITERATIONS_PAR_TEMPERATURE,
+                        options.getRefroidissement());
+                return null;
+            });
+        }
+        attendre(pool.invokeAll(taches));
+    }
+
+    /**
+     * Échange de répliques: les chaînes occupent une échelle géométrique de températures
+     * entre la température initiale et la température minimale. Après chaque palier
+     * (exécuté en parallèle), des échanges sont tentés entre températures voisines
+     * selon le critère de Metropolis. Le nombre de paliers est celui du schéma séquentiel,
+     * donc la durée murale reste celle d'une chaîne unique. Avec un budget, l'échelle est
+     * resserrée à chaque palier entre la température plafond du budget et la température minimale.
+     */
+    private void executerEchange(ForkJoinPool pool, List<ChaineRecuit> chaines) {
+        int k = chaines.size();
+        double[] temperatures = new double[k];
+        // chaineParTemperature[t] = indice de la chaîne placée à la température t
+        int[] chaineParTemperature = new int[k];
+        for (int t = 0; t < k; t++) chaineParTemperature[t] = t;
+
+        int nbPaliers = ChaineRecuit.nombrePaliers(temperatureInitiale,
+            OptimisationService.TEMPERATURE_MINIMALE, OptimisationService.TAUX_REFROIDISSEMENT);
+        SuiviOptimisation suivi = options.getSuivi();
+        suivi.prevoirPaliers(nbPaliers);
+
+        BudgetOptimisation budget = suivi.getBudget();
+
+        for (int palier = 0; palier < nbPaliers && !suivi.estAnnule(); palier++) {
+            double plafond = budget.temperaturePlafond(temperatureInitiale, OptimisationService.TEMPERATURE_MINIMALE);
+            if (plafond <= OptimisationService.TEMPERATURE_MINIMALE) break;
+            echelle(plafond, temperatures);
+
+            // Le budget est partagé équitablement entre les répliques du tour
+            int accordees = budget.reserver(k * OptimisationService.ITERATIONS_PAR_TEMPERATURE);
+            int iterationsParChaine = accordees / k;
+            if (iterationsParChaine == 0) break;
+
+            List<Callable<Integer>> taches = new ArrayList<>(k);
+            for (int t = 0; t < k; t++) {
+                ChaineRecuit chaine = chaines.get(chaineParTemperature[t]);
+                double temperature = temperatures[t];
+                taches.add(() -> chaine.palier(temperature, iterationsParChaine));
+            }
+            int acceptes = 0;
+            for (Integer acceptesChaine : attendre(pool.invokeAll(taches))) acceptes += acceptesChaine;
+            // Seuls les voisins évalués consomment le budget
+            int evalues = 0;
+            for (ChaineRecuit chaine : chaines) evalues += chaine.getEvalues();
+            budget.rendre(accordees - evalues);
+
+            // Température rapportée: celle de la réplique qui détient la meilleure solution
+            int meilleure = 0;
+            for (int t = 1; t < k; t++) {
+                if (chaines.get(chaineParTemperature[t]).getMeilleurCout()
+                        < chaines.get(chaineParTemperature[meilleure]).getMeilleurCout()) {
+                    meilleure = t;
+                }
+            }
+            suivi.palierTermine(temperatures[meilleure], evalues, acceptes,
+                chaines.get(chaineParTemperature[meilleure]).getMeilleurCout(), false);
+
+            // Échanges entre voisins pairs/impairs en alternance
+            for (int t = palier % 2; t + 1 < k; t += 2) {
+                ChaineRecuit chaude = chaines.get(chaineParTemperature[t]);
+                ChaineRecuit froide = chaines.get(chaineParTemperature[t + 1]);
+                double exposant = (froide.getCoutCourant() - chaude.getCoutCourant())
+                    * (1.0 / temperatures[t + 1] - 1.0 / temperatures[t]);
+                if (exposant >= 0 || Math.exp(exposant) > random.nextDouble()) {
+                    int tmp = chaineParTemperature[t];
+                    chaineParTemperature[t] = chaineParTemperature[t + 1];
+                    chaineParTemperature[t + 1] = tmp;
+                }
+            }
+        }
+    }
+
+    /** Échelle géométrique de températures entre {@code plafond} et la température minimale */
+    private static void echelle(double plafond, double[] temperatures) {
+        int k = temperatures.length;
+        for (int t = 0; t < k; t++) {
+            double ratio = k == 1 ? 0.0 : t / (double) (k - 1);
+            temperatures[t] = plafond * Math.pow(OptimisationService.TEMPERATURE_MINIMALE / plafond, ratio);
+        }
+    }
+
+    private static <T> List<T> attendre(List<Future<T>> futures) {
+        List<T> resultats = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            try {
+                resultats.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Optimisation interrompue", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Échec d'une chaîne de recuit", e.getCause());
+            }
+        }
+        return resultats;
+    }
+}
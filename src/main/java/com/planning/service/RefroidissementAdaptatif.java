@@ -0,0 +1,84 @@
+package com.planning.service;
+
+/**
+ * Schéma de refroidissement piloté par le taux d'acceptation mesuré à chaque palier:
+ * refroidit vite tant que presque tout est accepté, reste sur place tant que la meilleure
+ * solution progresse, et réchauffe quand la recherche est figée (peu d'acceptations et plus
+ * de progrès). Une fois les réchauffes épuisées, un nouveau blocage termine la chaîne.
+ */
+class RefroidissementAdaptatif {
+
+    /** Au-dessus de ce taux d'acceptation, la température est trop haute pour être utile */
+    static final double ACCEPTATION_HAUTE = 0.6;
+    /** En dessous de ce taux, la chaîne est froide: une stagnation y déclenche une réchauffe */
+    static final double ACCEPTATION_BASSE = 0.1;
+    static final double TAUX_RAPIDE = 0.7;
+    static final double FACTEUR_RECHAUFFE = 2.0;
+    /** Paliers consécutifs sans amélioration avant de réchauffer (ou d'arrêter) */
+    static final int PALIERS_STAGNATION = 20;
+    /** Paliers consécutifs passés à la même température tant que la solution progresse */
+    static final int MAX_SEJOURS = 3;
+    static final int MAX_RECHAUFFES = 3;
+
+    private final double temperatureInitiale;
+    private final double temperatureMinimale;
+    private final double tauxRefroidissement;
+
+    private double temperature;
+    private double temperatureMeilleure;
+    private int stagnation;
+    private int sejours;
+    private int rechauffes;
+    private boolean dernierRechauffe;
+
+    RefroidissementAdaptatif(double temperatureInitiale, double temperatureMinimale, double tauxRefroidissement) {
+        this.temperatureInitiale = temperatureInitiale;
+        this.temperatureMinimale = temperatureMinimale;
+        this.tauxRefroidissement = tauxRefroidissement;
+        this.temperature = temperatureInitiale;
+        this.temperatureMeilleure = temperatureInitiale;
+    }
+
+    double getTemperature() { return temperature; }
+    boolean estTermine() { return temperature <= temperatureMinimale; }
+    boolean dernierPalierRechauffe() { return dernierRechauffe; }
+
+    /**
+     * Calcule la température du palier suivant
+     * @param tauxAcceptation part des voisins acceptés pendant le palier
+     * @param ameliore vrai si la meilleure solution a progressé pendant le palier
+     */
+    void palierTermine(double tauxAcceptation, boolean ameliore) {
+        dernierRechauffe = false;
+        if (ameliore) {
+            stagnation = 0;
+            temperatureMeilleure = temperature;
+        } else {
+            stagnation++;
+        }
+
+        if (tauxAcceptation > ACCEPTATION_HAUTE) {
+            sejours = 0;
+            temperature *= TAUX_RAPIDE;
+        } else if (ameliore && sejours < MAX_SEJOURS) {
+            sejours++;
+        } else if (stagnation >= PALIERS_STAGNATION && tauxAcceptation < ACCEPTATION_BASSE) {
+            sejours = 0;
+            stagnation = 0;
+            // Réchauffer au-dessus de la température du dernier progrès, sans dépasser la
+            // température initiale
+            double rechauffee = Math.min(temperatureInitiale,
+                Math.max(temperature, temperatureMeilleure) * FACTEUR_RECHAUFFE);
+            if (rechauffes < MAX_RECHAUFFES && rechauffee > temperature) {
+                rechauffes++;
+                dernierRechauffe = true;
+                temperature = rechauffee;
+            } else {
+                temperature = temperatureMinimale; // figée sans réchauffe possible: arrêt
+            }
+        } else {
+            sejours = 0;
+            temperature *= tauxRefroidissement;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.planning.service;
+
+import com.planning.dao.ActiviteDAO;
+import com.planning.dao.ContrainteDAO;
+import com.planning.model.Activite;
+import com.planning.model.ContrainteHoraire;
+import com.planning.model.ContraintePersonnelle;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Rejoue hors ligne, sans base de données, une exécution enregistrée par
+ * EnregistrementOptimisation: mêmes entrées, même graine, même placement repris.
+ * Sans budget de temps, le résultat est identique à l'exécution d'origine (une chaîne, ou
+ * plusieurs en mode échange). Avec un budget de temps, le rejeu remplace l'échéance par le
+ * nombre d'évaluations consommées à l'origine: même effort, mais pas la même trajectoire.
+ * Les répétitions permettent d'attacher un profileur.
+ *
+ * Usage: java -cp WEB-INF/classes:WEB-INF/lib/* com.planning.service.RejeuOptimisation fichier [repetitions]
+ */
+class RejeuOptimisation {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: RejeuOptimisation fichier [repetitions]");
+            return;
+        }
+        EnregistrementOptimisation e = EnregistrementOptimisation.lire(Paths.get(args[0]));
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        boolean budgetTemps = e.options.getBudgetMillis() > 0;
+
+        System.out.printf(Locale.US, "origine: moteur=%s duree=%d ms evaluations=%d cout=%.4f%n",
+            e.moteur, e.dureeMillis, e.evaluations, e.meilleurCout);
+        if (budgetTemps) {
+            System.out.println("budget de temps remplacé par " + e.evaluations + " évaluations");
+        }
+        OptimisationService service = new OptimisationService(activites(e), contraintes(e));
+        for (int r = 1; r <= repetitions; r++) {
+            // Le démarrage à chaud repart du placement enregistré, comme à l'origine; pas de résultat mémorisé
+            ResultatEnCache.vider();
+            SolutionEnCache.invalider(e.utilisateurId);
+            if (!e.reprise.isEmpty()) {
+                SolutionEnCache.enregistrer(e.utilisateurId, e.versionContraintes,
+                    SolutionEnCache.empreinteFixes(OptimisationService.exclureMobiles(e.fixes, e.activites)), e.repriseDebut, e.repriseFin,
+                    e.activitesReprises());
+            }
+            OptionsOptimisation options = copierOptions(e);
+            if (budgetTemps) {
+                options.setBudgetMillis(0);
+                options.setBudgetEvaluations(e.evaluations);
+            }
+            List<Activite> resultat = service.genererPlanningOptimise(copier(e.activites), e.utilisateurId,
+                e.dateDebut, e.dateFin, options);
+            SuiviOptimisation suivi = options.getSuivi();
+            boolean identique = EnregistrementOptimisation.empreinte(resultat) == e.empreinteResultat;
+            System.out.printf(Locale.US, "rejeu %d: moteur=%s duree=%d ms evaluations=%d cout=%.4f placement %s%n",
+                r, suivi.getMoteur(), suivi.getBudget().getDureeMillis(), suivi.getBudget().getEvaluations(),
+                suivi.getMeilleurCout(), identique ? "identique" : "différent");
+        }
+    }
+
+    private static OptionsOptimisation copierOptions(EnregistrementOptimisation e) {
+        OptionsOptimisation options = new OptionsOptimisation();
+        options.setMoteur(e.options.getMoteur());
+        options.setNbChaines(e.options.getNbChaines());
+        options.setMode(e.options.getMode());
+        options.setParallelisme(e.options.getParallelisme());
+        options.setRefroidissement(e.options.getRefroidissement());
+        options.setDecomposition(e.options.getDecomposition());
+        options.setDemarrageAChaud(e.options.isDemarrageAChaud());
+        options.setFatigue(e.options.isFatigue());
+        options.setBudgetMillis(e.options.getBudgetMillis());
+        options.setBudgetEvaluations(e.options.getBudgetEvaluations());
+        options.setGraine(e.graine);
+        return options;
+    }
+
+    /** Copie des activités à optimiser (le service ne doit pas voir les objets d'une répétition précédente) */
+    private static List<Activite> copier(List<Activite> activites) {
+        List<Activite> copies = new ArrayList<>(activites.size());
+        for (Activite source : activites) {
+            Activite copie = new Activite();
+            copie.setId(source.getId());
+            copie.setUtilisateurId(source.getUtilisateurId());
+            copie.setDebut(source.getDebut());
+            copie.setFin(source.getFin());
+            copie.setCategorieId(source.getCategorieId());
+            copie.setPriorite(source.getPriorite());
+            copie.setStatut(source.getStatut());
+            copies.add(copie);
+        }
+        return copies;
+    }
+
+    /** Activités fixes enregistrées, en lecture seule */
+    private static ActiviteDAO activites(EnregistrementOptimisation e) {
+        return new ActiviteDAO() {
+            @Override public Activite findById(int id) { throw new UnsupportedOperationException("rejeu"); }
+            @Override public List<Activite> findAllByUser(int userId) { return e.fixes; }
+            @Override public List<Activite> findByUserAndDateRange(int userId, LocalDateTime debut, LocalDateTime fin) {
+                return e.fixes;
+            }
+            @Override public void save(Activite activite) { throw new UnsupportedOperationException("rejeu"); }
+            @Override public void update(Activite activite) { throw new UnsupportedOperationException("rejeu"); }
+            @Override public void delete(int id) { throw new UnsupportedOperationException("rejeu"); }
+            @Override public List<Activite> findByIds(List<Integer> ids) { throw new UnsupportedOperationException("rejeu"); }
+            @Override public void enregistrerLot(List<Activite> aMettreAJour, List<Activite> aCreer) {
+                throw new UnsupportedOperationException("rejeu");
+            }
+            @Override public Map<Integer, List<Activite>> findByUsersAndDateRange(List<Integer> userIds,
+                                                                              LocalDateTime debut, LocalDateTime fin) {
+                throw new UnsupportedOperationException("rejeu");
+            }
+            @Override public List<Integer> findUtilisateursByDateRange(LocalDateTime debut, LocalDateTime fin) {
+                throw new UnsupportedOperationException("rejeu");
+            }
+            @Override public long getVersion(int userId) { return 0L; }
+        };
+    }
+
+    /** Contraintes enregistrées, en lecture seule, à la version d'origine */
+    private static ContrainteDAO contraintes(EnregistrementOptimisation e) {
+        return new ContrainteDAO() {
+            @Override public List<ContrainteHoraire> findHoraireByUser(int userId) { return e.horaires; }
+            @Override public List<ContraintePersonnelle> findPersonnelleByUser(int userId) { return e.personnelles; }
+            @Override public void saveHoraire(ContrainteHoraire c) { throw new UnsupportedOperationException("rejeu"); }
+            @Override public void savePersonnelle(ContraintePersonnelle c) { throw new UnsupportedOperationException("rejeu"); }
+            @Override public void delete(int id) { throw new UnsupportedOperationException("rejeu"); }
+            @Override public long getVersion(int userId) { return e.versionContraintes; }
+            @Override public Map<Integer, List<ContrainteHoraire>> findHoraireByUsers(List<Integer> userIds) {
+                throw new UnsupportedOperationException("rejeu");
+            }
+            @Override public Map<Integer, List<ContraintePersonnelle>> findPersonnelleByUsers(List<Integer> userIds) {
+                throw new UnsupportedOperationException("rejeu");
+            }
+        };
+    }
+}
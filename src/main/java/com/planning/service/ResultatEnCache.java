@@ -0,0 +1,229 @@
+package com.planning.service;
+
+import com.planning.model.Activite;
+import com.planning.util.CacheLRU;
+import com.planning.util.MinutesEpoch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Résultats d'optimisation mémorisés: une requête identique (mêmes activités, même fenêtre,
+ * mêmes options) pour un utilisateur dont ni les activités ni les contraintes n'ont été écrites
+ * depuis reçoit le planning déjà calculé, sans chargement ni recherche.
+ *
+ * La clé contient les versions des activités et des contraintes (ActiviteDAO#getVersion,
+ * ContrainteDAO#getVersion): toute écriture par les DAO rend les entrées de l'utilisateur
+ * inaccessibles, et elles sont retirées à la mémorisation suivante pour cet utilisateur.
+ * Les activités fixes de la fenêtre sont couvertes par la version des activités.
+ * Les empreintes 64 bits ne servent qu'au hachage: la clé garde une copie des activités et
+ * les valeurs des options, comparées en entier, pour qu'une collision ne serve jamais le
+ * planning d'une autre requête.
+ * Cache borné (LRU), plannings de plus de TAILLE_MAX activités exclus.
+ */
+final class ResultatEnCache {
+
+    static final int CAPACITE = 500;
+    static final int TAILLE_MAX = 1000;
+
+    private static final CacheLRU<Cle, ResultatEnCache> CACHE = new CacheLRU<>(CAPACITE);
+
+    private final List<Activite> resultat;
+    private final String moteur;
+    private final long graine;
+    private final double meilleurCout;
+    private final double[] composantes;
+    private final long octets;
+
+    private ResultatEnCache(Cle cle, List<Activite> resultat, SuiviOptimisation suivi) {
+        this.resultat = copier(resultat);
+        this.moteur = suivi.getMoteur();
+        this.graine = suivi.getGraine();
+        this.meilleurCout = suivi.getMeilleurCout();
+        this.composantes = suivi.getComposantesCout();
+        long taille = 128;
+        for (Activite act : resultat) taille += tailleEstimee(act);
+        for (Activite act : cle.activites) taille += tailleEstimee(act);
+        this.octets = taille;
+    }
+
+    /** Clé d'une requête d'optimisation */
+    static Cle cle(int utilisateurId, long versionActivites, long versionContraintes,
+                   int fenetreDebut, int fenetreFin, OptionsOptimisation options, List<Activite> activites) {
+        return new Cle(utilisateurId, versionActivites, versionContraintes, fenetreDebut, fenetreFin,
+            valeursOptions(options), copier(activites));
+    }
+
+    /**
+     * Planning mémorisé pour la clé (nouvelles copies, modifiables par l'appelant), null sinon.
+     * Le suivi reprend le moteur, la graine et les coûts de l'exécution d'origine.
+     */
+    static List<Activite> chercher(Cle cle, SuiviOptimisation suivi) {
+        ResultatEnCache entree = CACHE.get(cle);
+        if (entree == null) return null;
+        suivi.resultatMemorise(entree.moteur, entree.graine, entree.meilleurCout, entree.composantes);
+        return copier(entree.resultat);
+    }
+
+    static void memoriser(Cle cle, List<Activite> resultat, SuiviOptimisation suivi) {
+        if (resultat.size() > TAILLE_MAX) return;
+        // Entrées de l'utilisateur devenues inaccessibles depuis une écriture (versions antérieures
+        // seulement: une entrée plus récente, mémorisée par une requête concurrente, reste valable)
+        CACHE.invaliderSi((k, v) -> k.utilisateurId == cle.utilisateurId
+            && (k.versionActivites < cle.versionActivites || k.versionContraintes < cle.versionContraintes));
+        CACHE.put(cle, new ResultatEnCache(cle, resultat, suivi));
+    }
+
+    static void vider() { CACHE.vider(); }
+
+    static int getEntrees() { return CACHE.taille(); }
+    static long getSucces() { return CACHE.getSucces(); }
+    static long getEchecs() { return CACHE.getEchecs(); }
+    /** Mémoire occupée estimée, en octets */
+    static long getOctets() { return CACHE.sommer(e -> e.octets); }
+
+    // ===== Internes =====
+
+    /** Options qui influencent le résultat, dans un ordre fixe */
+    private static long[] valeursOptions(OptionsOptimisation options) {
+        return new long[]{
+            options.getMoteur().ordinal(),
+            options.getNbChaines(),
+            options.getMode().ordinal(),
+            options.getRefroidissement().ordinal(),
+            options.getDecomposition().ordinal(),
+            options.isDemarrageAChaud() ? 1 : 0,
+            options.isFatigue() ? 1 : 0,
+            options.getBudgetMillis(),
+            options.getBudgetEvaluations(),
+            options.getGraine() != null ? 1 : 0,
+            options.getGraine() != null ? options.getGraine() : 0
+        };
+    }
+
+    private static long empreinteOptions(long[] valeurs) {
+        long h = 17;
+        for (long v : valeurs) h = melanger(h, v);
+        return h;
+    }
+
+    /** Empreinte de tous les champs des activités, dans l'ordre de la liste */
+    private static long empreinteActivites(List<Activite> activites) {
+        long h = melanger(31, activites.size());
+        for (Activite act : activites) {
+            h = melanger(h, act.getId());
+            h = melanger(h, act.getUtilisateurId());
+            h = melanger(h, act.getDebut() != null ? MinutesEpoch.de(act.getDebut()) : Long.MIN_VALUE);
+            h = melanger(h, act.getFin() != null ? MinutesEpoch.de(act.getFin()) : Long.MIN_VALUE);
+            h = melanger(h, act.getCategorieId() != null ? act.getCategorieId() : Long.MIN_VALUE);
+            h = melanger(h, texte(act.getPriorite()));
+            h = melanger(h, texte(act.getStatut()));
+            h = melanger(h, texte(act.getTitre()));
+            h = melanger(h, texte(act.getDescription()));
+        }
+        return h;
+    }
+
+    /** Mêmes valeurs pour tous les champs, dans le même ordre */
+    private static boolean memesActivites(List<Activite> a, List<Activite> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            Activite x = a.get(i);
+            Activite y = b.get(i);
+            if (x.getId() != y.getId() || x.getUtilisateurId() != y.getUtilisateurId()
+                    || !Objects.equals(x.getDebut(), y.getDebut()) || !Objects.equals(x.getFin(), y.getFin())
+                    || !Objects.equals(x.getCategorieId(), y.getCategorieId())
+                    || !Objects.equals(x.getPriorite(), y.getPriorite()) || !Objects.equals(x.getStatut(), y.getStatut())
+                    || !Objects.equals(x.getTitre(), y.getTitre())
+                    || !Objects.equals(x.getDescription(), y.getDescription())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long texte(String s) {
+        if (s == null) return Long.MIN_VALUE;
+        long h = 1125899906842597L;
+        for (int i = 0; i < s.length(); i++) h = 31 * h + s.charAt(i);
+        return h;
+    }
+
+    /** Combinaison 64 bits (multiplication et décalage), sensible à l'ordre */
+    private static long melanger(long h, long v) {
+        h ^= v;
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static long tailleEstimee(Activite act) {
+        // Objet et dates (~150 octets), plus les chaînes
+        return 150 + 2L * (longueur(act.getTitre()) + longueur(act.getDescription())
+            + longueur(act.getPriorite()) + longueur(act.getStatut()));
+    }
+
+    private static int longueur(String s) { return s == null ? 0 : 40 + s.length(); }
+
+    private static List<Activite> copier(List<Activite> activites) {
+        List<Activite> copies = new ArrayList<>(activites.size());
+        for (Activite source : activites) {
+            Activite copie = new Activite();
+            copie.setId(source.getId());
+            copie.setUtilisateurId(source.getUtilisateurId());
+            copie.setTitre(source.getTitre());
+            copie.setDescription(source.getDescription());
+            copie.setDebut(source.getDebut());
+            copie.setFin(source.getFin());
+            copie.setCategorieId(source.getCategorieId());
+            copie.setPriorite(source.getPriorite());
+            copie.setStatut(source.getStatut());
+            copies.add(copie);
+        }
+        return copies;
+    }
+
+    static final class Cle {
+        final int utilisateurId;
+        final long versionActivites;
+        final long versionContraintes;
+        final int fenetreDebut;
+        final int fenetreFin;
+        final long[] options;
+        /** Copie des activités demandées (l'appelant peut modifier les siennes) */
+        final List<Activite> activites;
+        final long empreinteOptions;
+        final long empreinteActivites;
+
+        private Cle(int utilisateurId, long versionActivites, long versionContraintes, int fenetreDebut,
+                    int fenetreFin, long[] options, List<Activite> activites) {
+            this.utilisateurId = utilisateurId;
+            this.versionActivites = versionActivites;
+            this.versionContraintes = versionContraintes;
+            this.fenetreDebut = fenetreDebut;
+            this.fenetreFin = fenetreFin;
+            this.options = options;
+            this.activites = activites;
+            this.empreinteOptions = empreinteOptions(options);
+            this.empreinteActivites = empreinteActivites(activites);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Cle)) return false;
+            Cle c = (Cle) o;
+            return utilisateurId == c.utilisateurId && versionActivites == c.versionActivites
+                && versionContraintes == c.versionContraintes && fenetreDebut == c.fenetreDebut
+                && fenetreFin == c.fenetreFin && empreinteOptions == c.empreinteOptions
+                && empreinteActivites == c.empreinteActivites
+                && Arrays.equals(options, c.options) && memesActivites(activites, c.activites);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(melanger(melanger(empreinteActivites, empreinteOptions), utilisateurId));
+        }
+    }
+}
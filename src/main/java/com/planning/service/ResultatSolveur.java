@@ -0,0 +1,20 @@
+package com.planning.service;
+
+/**
+ * Meilleure solution trouvée par un moteur (créneaux en minutes depuis l'epoch)
+ */
+final class ResultatSolveur {
+    private final int[] debuts;
+    private final int[] fins;
+    private final double cout;
+
+    ResultatSolveur(int[] debuts, int[] fins, double cout) {
+        this.debuts = debuts;
+        this.fins = fins;
+        this.cout = cout;
+    }
+
+    int[] getDebuts() { return debuts; }
+    int[] getFins() { return fins; }
+    double getCout() { return cout; }
+}
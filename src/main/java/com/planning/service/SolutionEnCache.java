@@ -0,0 +1,134 @@
+package com.planning.service;
+
+import com.planning.model.Activite;
+import com.planning.util.CacheLRU;
+import com.planning.util.MinutesEpoch;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dernier placement optimisé d'un utilisateur, servant de point de départ (démarrage à chaud)
+ * à l'optimisation suivante. Une entrée n'est reprise que si les contraintes de l'utilisateur
+ * et les activités fixes n'ont pas changé; chaque activité n'est reprise que si elle est
+ * encore exactement à sa place optimisée (sinon elle a été modifiée depuis).
+ */
+final class SolutionEnCache {
+
+    private static final CacheLRU<Integer, SolutionEnCache> CACHE = new CacheLRU<>(1000);
+    /** Au-delà, le placement est jugé trop ancien pour servir de point de départ */
+    private static final long DUREE_VIE_NANOS = TimeUnit.MINUTES.toNanos(30);
+
+    private final long versionContraintes;
+    private final long empreinteFixes;
+    private final int fenetreDebut;
+    private final int fenetreFin;
+    private final long creeLeNanos = System.nanoTime();
+    // Placements triés par id (recherche dichotomique)
+    private final int[] ids;
+    private final int[] debuts;
+    private final int[] fins;
+
+    private SolutionEnCache(long versionContraintes, long empreinteFixes, int fenetreDebut, int fenetreFin,
+                            int[] ids, int[] debuts, int[] fins) {
+        this.versionContraintes = versionContraintes;
+        this.empreinteFixes = empreinteFixes;
+        this.fenetreDebut = fenetreDebut;
+        this.fenetreFin = fenetreFin;
+        this.ids = ids;
+        this.debuts = debuts;
+        this.fins = fins;
+    }
+
+    /**
+     * Retourne le dernier placement réutilisable pour l'utilisateur, null sinon (l'entrée
+     * périmée est alors supprimée)
+     */
+    static SolutionEnCache reprise(int utilisateurId, long versionContraintes, long empreinteFixes) {
+        SolutionEnCache entree = CACHE.get(utilisateurId);
+        if (entree == null) return null;
+        if (entree.versionContraintes != versionContraintes
+                || entree.empreinteFixes != empreinteFixes
+                || System.nanoTime() - entree.creeLeNanos > DUREE_VIE_NANOS) {
+            CACHE.invalider(utilisateurId);
+            return null;
+        }
+        return entree;
+    }
+
+    /**
+     * Mémorise le placement optimisé des activités persistées (id > 0)
+     */
+    static void enregistrer(int utilisateurId, long versionContraintes, long empreinteFixes,
+                            int fenetreDebut, int fenetreFin, List<Activite> solution) {
+        int[] ids = new int[solution.size()];
+        int n = 0;
+        for (Activite act : solution) {
+            if (act.getId() > 0) ids[n++] = act.getId();
+        }
+        if (n == 0) return;
+        ids = Arrays.copyOf(ids, n);
+        Arrays.sort(ids);
+
+        int[] debuts = new int[n];
+        int[] fins = new int[n];
+        for (Activite act : solution) {
+            if (act.getId() <= 0) continue;
+            int k = Arrays.binarySearch(ids, act.getId());
+            debuts[k] = MinutesEpoch.de(act.getDebut());
+            fins[k] = MinutesEpoch.de(act.getFin());
+        }
+        CACHE.put(utilisateurId, new SolutionEnCache(versionContraintes, empreinteFixes,
+            fenetreDebut, fenetreFin, ids, debuts, fins));
+    }
+
+    static void invalider(int utilisateurId) {
+        CACHE.invalider(utilisateurId);
+    }
+
+    /**
+     * Empreinte des activités fixes (hors activités à optimiser, voir
+     * OptimisationService.exclureMobiles): si elle change, l'ancien placement a été optimisé
+     * contre un autre planning et n'est plus repris
+     */
+    static long empreinteFixes(List<Activite> activitesFixes) {
+        long empreinte = 17;
+        for (Activite fixe : activitesFixes) {
+            empreinte = 31 * empreinte + fixe.getId();
+            empreinte = 31 * empreinte + (fixe.getDebut() != null ? MinutesEpoch.de(fixe.getDebut()) : 0);
+            empreinte = 31 * empreinte + (fixe.getFin() != null ? MinutesEpoch.de(fixe.getFin()) : 0);
+        }
+        return empreinte;
+    }
+
+    /**
+     * Vrai si l'activité est encore à la place optimisée mémorisée, dans la fenêtre demandée
+     */
+    boolean estInchangee(Activite act, int fenetreDebut, int fenetreFin) {
+        if (act.getId() <= 0 || act.getDebut() == null || act.getFin() == null) return false;
+        int k = Arrays.binarySearch(ids, act.getId());
+        if (k < 0) return false;
+        int debut = MinutesEpoch.de(act.getDebut());
+        int fin = MinutesEpoch.de(act.getFin());
+        return debuts[k] == debut && fins[k] == fin
+            && debut >= Math.max(fenetreDebut, this.fenetreDebut)
+            && fin <= Math.min(fenetreFin, this.fenetreFin);
+    }
+
+    /** Placement mémorisé (id, début, fin), pour l'enregistrement d'une exécution */
+    void copierDans(EnregistrementOptimisation enregistrement) {
+        enregistrement.repriseDebut = fenetreDebut;
+        enregistrement.repriseFin = fenetreFin;
+        for (int k = 0; k < ids.length; k++) enregistrement.reprise.add(new int[]{ids[k], debuts[k], fins[k]});
+    }
+
+    /** Nombre d'activités de la liste reprises telles quelles */
+    int compterInchangees(List<Activite> activites, int fenetreDebut, int fenetreFin) {
+        int n = 0;
+        for (Activite act : activites) {
+            if (estInchangee(act, fenetreDebut, fenetreFin)) n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,16 @@
+package com.planning.service;
+
+import java.util.SplittableRandom;
+
+/**
+ * Moteur d'optimisation d'un problème encodé. Le service prépare la solution initiale
+ * (placement glouton par priorité) et délègue l'amélioration au moteur choisi.
+ * Un moteur respecte le budget et l'annulation portés par {@code options.getSuivi()}.
+ */
+interface Solveur {
+
+    /** Nom court exposé dans les réponses (paramètre {@code moteur}) */
+    String getNom();
+
+    ResultatSolveur resoudre(ProblemePlanification probleme, OptionsOptimisation options, SplittableRandom random);
+}
@@ -0,0 +1,164 @@
+package com.planning.service;
+
+import com.planning.util.MinutesEpoch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Décomposition de l'horizon: les activités sont réparties en blocs (jour ou demi-semaine,
+ * selon leur début dans la solution initiale), chaque bloc est optimisé indépendamment et
+ * en parallèle, puis une passe de raccord améliore les activités proches des frontières
+ * sur le problème complet. Les termes de chevauchement et de temps mort étant surtout
+ * locaux à une journée, le coût total croît quasi linéairement avec la longueur de l'horizon.
+ */
+class SolveurDecompose implements Solveur {
+
+    /** Distance à une frontière de bloc en deçà de laquelle une activité est reprise au raccord */
+    static final int MARGE_RACCORD = 120;
+    static final int PASSES_RACCORD = 3;
+    private static final int[] DECALAGES = {-60, -30, -15, 15, 30, 60};
+
+    private final int tailleBloc;
+    private final IntFunction<Solveur> solveurParTaille;
+
+    /**
+     * @param tailleBloc taille d'un bloc en minutes (diviseur d'une semaine, aligné sur le lundi 00:00)
+     * @param solveurParTaille moteur à utiliser pour un bloc du nombre d'activités donné
+     */
+    SolveurDecompose(int tailleBloc, IntFunction<Solveur> solveurParTaille) {
+        this.tailleBloc = tailleBloc;
+        this.solveurParTaille = solveurParTaille;
+    }
+
+    @Override
+    public String getNom() { return "decomposition"; }
+
+    @Override
+    public ResultatSolveur resoudre(ProblemePlanification probleme, OptionsOptimisation options, SplittableRandom random) {
+        int taille = probleme.taille();
+        int fenetreDebut = probleme.getFenetreDebut();
+        int fenetreFin = probleme.getFenetreFin();
+
+        // 1. Répartition des activités par bloc (clé = début du bloc)
+        TreeMap<Integer, List<Integer>> blocs = new TreeMap<>();
+        for (int i = 0; i < taille; i++) {
+            int debut = Math.max(fenetreDebut, Math.min(fenetreFin - 1, probleme.getDebut(i)));
+            blocs.computeIfAbsent(debutBloc(debut), k -> new ArrayList<>()).add(i);
+        }
+
+        // 2. Optimisation des blocs en parallèle, chacun avec son générateur, son moteur et son suivi
+        List<int[]> indicesBlocs = new ArrayList<>(blocs.size());
+        List<OptionsOptimisation> optionsBlocs = new ArrayList<>(blocs.size());
+        List<Callable<ResultatSolveur>> taches = new ArrayList<>(blocs.size());
+        for (Map.Entry<Integer, List<Integer>> bloc : blocs.entrySet()) {
+            int[] indices = new int[bloc.getValue().size()];
+            for (int k = 0; k < indices.length; k++) indices[k] = bloc.getValue().get(k);
+            int debut = Math.max(fenetreDebut, bloc.getKey());
+            int fin = Math.min(fenetreFin, bloc.getKey() + tailleBloc);
+            ProblemePlanification sousProbleme = probleme.sousProbleme(indices, debut, fin);
+            Solveur solveur = solveurParTaille.apply(indices.length);
+            SplittableRandom alea = random.split();
+            OptionsOptimisation optionsBloc = options.pourBloc();
+            indicesBlocs.add(indices);
+            optionsBlocs.add(optionsBloc);
+            taches.add(() -> solveur.resoudre(sousProbleme, optionsBloc, alea));
+        }
+
+        SuiviOptimisation suivi = options.getSuivi();
+        suivi.prevoirPaliers(taches.size());
+        int[] debuts = new int[taille];
+        int[] fins = new int[taille];
+        ForkJoinPool pool = options.getParallelisme() > 0
+            ? new ForkJoinPool(options.getParallelisme())
+            : ForkJoinPool.commonPool();
+        try {
+            List<Future<ResultatSolveur>> resultats = pool.invokeAll(taches);
+            for (int b = 0; b < resultats.size(); b++) {
+                ResultatSolveur resultat = attendre(resultats.get(b));
+                suivi.blocTermine(optionsBlocs.get(b).getSuivi());
+                int[] indices = indicesBlocs.get(b);
+                for (int k = 0; k < indices.length; k++) {
+                    debuts[indices[k]] = resultat.getDebuts()[k];
+                    fins[indices[k]] = resultat.getFins()[k];
+                }
+            }
+        } finally {
+            if (pool != ForkJoinPool.commonPool()) pool.shutdown();
+        }
+
+        // 3. Raccord sur le problème complet
+        return raccorder(probleme.avecSolution(debuts, fins), suivi);
+    }
+
+    /**
+     * Amélioration stricte par décalages des seules activités proches d'une frontière de bloc
+     */
+    private ResultatSolveur raccorder(ProblemePlanification probleme, SuiviOptimisation suivi) {
+        EvaluateurCout evaluateur = probleme.creerEvaluateur();
+        BudgetOptimisation budget = suivi.getBudget();
+        double cout = evaluateur.cout();
+        // Seul le coût du plan complet est rapporté: ceux des blocs sont partiels
+        suivi.solutionComplete(cout);
+
+        for (int passe = 0; passe < PASSES_RACCORD && !suivi.estAnnule(); passe++) {
+            int evaluations = 0;
+            int ameliorations = 0;
+            boolean epuise = false;
+            for (int i = 0; i < evaluateur.taille() && !epuise; i++) {
+                if (!procheFrontiere(evaluateur.getDebut(i), evaluateur.getFin(i))) continue;
+                for (int decalage : DECALAGES) {
+                    int debut = evaluateur.getDebut(i) + decalage;
+                    if (debut <= probleme.getFenetreDebut() || debut >= probleme.getFenetreFin()) continue;
+                    if (budget.reserver(1) == 0) { epuise = true; break; }
+                    evaluations++;
+                    int duree = evaluateur.getFin(i) - evaluateur.getDebut(i);
+                    double coutVoisin = evaluateur.deplacer(i, debut, debut + duree);
+                    if (coutVoisin < cout) {
+                        evaluateur.valider();
+                        cout = coutVoisin;
+                        ameliorations++;
+                    } else {
+                        evaluateur.annuler();
+                    }
+                }
+            }
+            suivi.palierTermine(0.0, evaluations, ameliorations, cout, false);
+            if (ameliorations == 0 || epuise) break;
+        }
+
+        int[] debuts = new int[evaluateur.taille()];
+        int[] fins = new int[evaluateur.taille()];
+        evaluateur.copierCreneaux(debuts, fins);
+        return new ResultatSolveur(debuts, fins, cout);
+    }
+
+    private int debutBloc(int minute) {
+        return minute - Math.floorMod(MinutesEpoch.minuteDeSemaine(minute), tailleBloc);
+    }
+
+    private boolean procheFrontiere(int debut, int fin) {
+        int bloc = debutBloc(debut);
+        return debut - bloc < MARGE_RACCORD
+            || bloc + tailleBloc - fin < MARGE_RACCORD;
+    }
+
+    private static ResultatSolveur attendre(Future<ResultatSolveur> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Optimisation interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Échec de l'optimisation d'un bloc", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.planning.service;
+
+import java.util.SplittableRandom;
+
+/**
+ * Placement glouton suivi d'une recherche locale par amélioration stricte (hill climbing):
+ * chaque passe essaie, pour chaque activité, des décalages de ±15 à ±60 minutes puis
+ * l'échange avec chacune des autres, et garde tout mouvement qui baisse le coût.
+ * S'arrête dès qu'une passe n'améliore plus rien. Déterministe et sans température,
+ * adapté aux listes courtes peu contraintes.
+ */
+class SolveurGlouton implements Solveur {
+
+    static final int MAX_PASSES = 10;
+    private static final int[] DECALAGES = {-60, -30, -15, 15, 30, 60};
+
+    @Override
+    public String getNom() { return "glouton"; }
+
+    @Override
+    public ResultatSolveur resoudre(ProblemePlanification probleme, OptionsOptimisation options, SplittableRandom random) {
+        EvaluateurCout evaluateur = probleme.creerEvaluateur();
+        SuiviOptimisation suivi = options.getSuivi();
+        BudgetOptimisation budget = suivi.getBudget();
+        int fenetreDebut = probleme.getFenetreDebut();
+        int fenetreFin = probleme.getFenetreFin();
+        int taille = evaluateur.taille();
+        double cout = evaluateur.cout();
+
+        suivi.prevoirPaliers(MAX_PASSES);
+        for (int passe = 0; passe < MAX_PASSES && !suivi.estAnnule(); passe++) {
+            int evaluations = 0;
+            int ameliorations = 0;
+            boolean epuise = false;
+
+            for (int i = 0; i < taille && !epuise; i++) {
+                // Décaler l'activité i
+                for (int decalage : DECALAGES) {
+                    int debut = evaluateur.getDebut(i) + decalage;
+                    if (debut <= fenetreDebut || debut >= fenetreFin) continue;
+                    if (budget.reserver(1) == 0) { epuise = true; break; }
+                    evaluations++;
+                    int duree = evaluateur.getFin(i) - evaluateur.getDebut(i);
+                    double coutVoisin = evaluateur.deplacer(i, debut, debut + duree);
+                    if (coutVoisin < cout) {
+                        evaluateur.valider();
+                        cout = coutVoisin;
+                        ameliorations++;
+                    } else {
+                        evaluateur.annuler();
+                    }
+                }
+
+                // Échanger les créneaux de i et j
+                for (int j = i + 1; j < taille && !epuise; j++) {
+                    if (budget.reserver(1) == 0) { epuise = true; break; }
+                    evaluations++;
+                    int debutI = evaluateur.getDebut(i);
+                    int debutJ = evaluateur.getDebut(j);
+                    int dureeI = evaluateur.getFin(i) - debutI;
+                    int dureeJ = evaluateur.getFin(j) - debutJ;
+                    evaluateur.deplacer(i, debutJ, debutJ + dureeI);
+                    double coutVoisin = evaluateur.deplacer(j, debutI, debutI + dureeJ);
+                    if (coutVoisin < cout) {
+                        evaluateur.valider();
+                        cout = coutVoisin;
+                        ameliorations++;
+                    } else {
+                        evaluateur.annuler();
+                    }
+                }
+            }
+
+            suivi.palierTermine(0.0, evaluations, ameliorations, cout, false);
+            if (ameliorations == 0 || epuise) break;
+        }
+
+        int[] debuts = new int[taille];
+        int[] fins = new int[taille];
+        evaluateur.copierCreneaux(debuts, fins);
+        return new ResultatSolveur(debuts, fins, cout);
+    }
+}
@@ -0,0 +1,192 @@
+package com.planning.service;
+
+import java.util.SplittableRandom;
+
+/**
+ * Recherche à voisinage large (LNS) avec liste tabou, pour les calendriers denses où les petits
+ * mouvements aléatoires du recuit sont presque toujours rejetés.
+ *
+ * Part de l'optimum local de la descente gloutonne. À chaque itération, un bloc de 2 à 8 activités
+ * consécutives (ordre chronologique) est retiré puis réinséré par un glouton: par priorité
+ * décroissante, chaque activité prend le créneau de la plage du bloc (±1 h) ou l'un des créneaux
+ * quittés par le bloc qui minimise le coût complet, contraintes comprises. La réparation est
+ * adoptée si elle reste à moins de 2% du record; la liste tabou interdit alors pendant quelques
+ * itérations de remettre une activité sur le créneau qu'elle vient de quitter (sauf si cela bat
+ * le record). Après une longue stagnation, la recherche repart de la meilleure solution.
+ */
+class SolveurLNS implements Solveur {
+
+    static final int TAILLE_BLOC_MIN = 2;
+    static final int TAILLE_BLOC_MAX = 8;
+    static final int MARGE_REINSERTION = 60;
+    static final int PAS_MIN = 15;
+    /** Nombre maximal de créneaux candidats par activité réinsérée */
+    static final int CANDIDATS_MAX = 48;
+    static final int DUREE_TABOU = 10;
+    static final int ITERATIONS_MAX = 2000;
+    static final int ITERATIONS_STAGNATION = 100;
+    /** Écart relatif au record au-delà duquel une réparation est défaite */
+    static final double TOLERANCE_RECORD = 0.02;
+    private static final double ECART_MIN_ACCEPTE = 1.0;
+    /** Un point de suivi toutes les N itérations */
+    private static final int ITERATIONS_PAR_PALIER = 20;
+    /** Créneaux hors fenêtre où les activités retirées attendent leur réinsertion */
+    private static final int ECART_PARKING = 100_000;
+
+    @Override
+    public String getNom() { return "lns"; }
+
+    @Override
+    public ResultatSolveur resoudre(ProblemePlanification probleme, OptionsOptimisation options, SplittableRandom random) {
+        // Point de départ: l'optimum local de la descente gloutonne, que les destructions vont perturber
+        ResultatSolveur descente = new SolveurGlouton().resoudre(probleme, options, random);
+        EvaluateurCout evaluateur = probleme.avecSolution(descente.getDebuts(), descente.getFins()).creerEvaluateur();
+        SuiviOptimisation suivi = options.getSuivi();
+        BudgetOptimisation budget = suivi.getBudget();
+        int taille = evaluateur.taille();
+        int fenetreDebut = probleme.getFenetreDebut();
+        int fenetreFin = probleme.getFenetreFin();
+
+        double cout = evaluateur.cout();
+        double meilleurCout = cout;
+        int[] meilleursDebuts = new int[taille];
+        int[] meilleursFins = new int[taille];
+        evaluateur.copierCreneaux(meilleursDebuts, meilleursFins);
+        if (taille < TAILLE_BLOC_MIN) return new ResultatSolveur(meilleursDebuts, meilleursFins, meilleurCout);
+
+        // Liste tabou circulaire: (activité, créneau quitté, itération d'expiration)
+        int capaciteTabou = DUREE_TABOU * TAILLE_BLOC_MAX;
+        int[] tabouIndice = new int[capaciteTabou];
+        int[] tabouDebut = new int[capaciteTabou];
+        int[] tabouExpiration = new int[capaciteTabou];
+        int prochainTabou = 0;
+
+        int[] bloc = new int[TAILLE_BLOC_MAX];
+        int[] ancienDebut = new int[TAILLE_BLOC_MAX];
+        int[] ancienneFin = new int[TAILLE_BLOC_MAX];
+        int stagnation = 0;
+        int evaluations = 0;
+        int ameliorations = 0;
+        suivi.prevoirPaliers(ITERATIONS_MAX / ITERATIONS_PAR_PALIER);
+
+        for (int iteration = 1; iteration <= ITERATIONS_MAX && !suivi.estAnnule(); iteration++) {
+            // 1. Destruction: un bloc d'activités chronologiquement consécutives
+            int k = TAILLE_BLOC_MIN + random.nextInt(Math.min(TAILLE_BLOC_MAX, taille) - TAILLE_BLOC_MIN + 1);
+            int premierRang = random.nextInt(taille - k + 1);
+            int plageDebut = Integer.MAX_VALUE;
+            int plageFin = Integer.MIN_VALUE;
+            for (int b = 0; b < k; b++) {
+                bloc[b] = evaluateur.indiceAuRang(premierRang + b);
+            }
+            for (int b = 0; b < k; b++) {
+                int i = bloc[b];
+                ancienDebut[b] = evaluateur.getDebut(i);
+                plageDebut = Math.min(plageDebut, evaluateur.getDebut(i));
+                plageFin = Math.max(plageFin, evaluateur.getFin(i));
+            }
+            trierParPoidsDecroissant(evaluateur, bloc, ancienDebut, k);
+            for (int b = 0; b < k; b++) ancienneFin[b] = evaluateur.getFin(bloc[b]);
+            for (int b = 0; b < k; b++) {
+                int i = bloc[b];
+                int parking = fenetreFin + ECART_PARKING * (b + 1);
+                cout = evaluateur.deplacer(i, parking, parking + evaluateur.getFin(i) - evaluateur.getDebut(i));
+                evaluateur.valider();
+            }
+
+            // 2. Réparation gloutonne: meilleur créneau non tabou de la plage élargie
+            int de = Math.max(fenetreDebut + 1, plageDebut - MARGE_REINSERTION);
+            int a = Math.min(fenetreFin - 1, plageFin + MARGE_REINSERTION);
+            int pas = Math.max(PAS_MIN, (a - de) / CANDIDATS_MAX);
+            boolean epuise = false;
+            for (int b = 0; b < k; b++) {
+                int i = bloc[b];
+                int duree = evaluateur.getFin(i) - evaluateur.getDebut(i);
+                int meilleurDebut = ancienDebut[b];
+                double meilleurCoutInsertion = Double.MAX_VALUE;
+                int grille = (a - de) / pas + 1;
+                int candidats = grille + k;
+                if (budget.reserver(candidats) < candidats) epuise = true;
+                for (int c = 0; c < candidats; c++) {
+                    // Grille de la plage, puis les créneaux quittés par le bloc (échanges entre activités retirées)
+                    int debut = c < grille ? de + c * pas : ancienDebut[c - grille];
+                    evaluations++;
+                    double coutCandidat = evaluateur.deplacer(i, debut, debut + duree);
+                    evaluateur.annuler();
+                    boolean tabou = estTabou(tabouIndice, tabouDebut, tabouExpiration, i, debut, pas, iteration);
+                    if (tabou && coutCandidat >= meilleurCout) continue; // aspiration: un tabou qui bat le record passe
+                    if (coutCandidat < meilleurCoutInsertion) {
+                        meilleurCoutInsertion = coutCandidat;
+                        meilleurDebut = debut;
+                    }
+                }
+                cout = evaluateur.deplacer(i, meilleurDebut, meilleurDebut + duree);
+                evaluateur.valider();
+            }
+
+            // 3. Acceptation « record-to-record »: une réparation trop loin du record est défaite
+            if (cout > meilleurCout + Math.max(ECART_MIN_ACCEPTE, meilleurCout * TOLERANCE_RECORD)) {
+                for (int b = 0; b < k; b++) {
+                    cout = evaluateur.deplacer(bloc[b], ancienDebut[b], ancienneFin[b]);
+                    evaluateur.valider();
+                }
+            } else {
+                // Interdire de revenir tout de suite sur les créneaux quittés
+                for (int b = 0; b < k; b++) {
+                    if (evaluateur.getDebut(bloc[b]) == ancienDebut[b]) continue;
+                    tabouIndice[prochainTabou] = bloc[b];
+                    tabouDebut[prochainTabou] = ancienDebut[b];
+                    tabouExpiration[prochainTabou] = iteration + DUREE_TABOU;
+                    prochainTabou = (prochainTabou + 1) % capaciteTabou;
+                }
+            }
+
+            if (cout < meilleurCout) {
+                meilleurCout = cout;
+                evaluateur.copierCreneaux(meilleursDebuts, meilleursFins);
+                stagnation = 0;
+                ameliorations++;
+            } else if (++stagnation >= ITERATIONS_STAGNATION) {
+                // Intensification: repartir de la meilleure solution connue
+                for (int i = 0; i < taille; i++) {
+                    cout = evaluateur.deplacer(i, meilleursDebuts[i], meilleursFins[i]);
+                    evaluateur.valider();
+                }
+                stagnation = 0;
+            }
+
+            if (iteration % ITERATIONS_PAR_PALIER == 0 || epuise) {
+                suivi.palierTermine(0.0, evaluations, ameliorations, meilleurCout, false);
+                evaluations = 0;
+                ameliorations = 0;
+            }
+            if (epuise) break;
+        }
+
+        return new ResultatSolveur(meilleursDebuts, meilleursFins, meilleurCout);
+    }
+
+    /** Tabou si l'activité revient à moins d'un pas du créneau qu'elle a quitté récemment */
+    private static boolean estTabou(int[] indices, int[] debuts, int[] expirations,
+                                    int i, int debut, int pas, int iteration) {
+        for (int t = 0; t < indices.length; t++) {
+            if (expirations[t] > iteration && indices[t] == i && Math.abs(debuts[t] - debut) < pas) return true;
+        }
+        return false;
+    }
+
+    /** Tri par insertion (blocs de quelques activités) du bloc et de ses anciens débuts */
+    private static void trierParPoidsDecroissant(EvaluateurCout evaluateur, int[] bloc, int[] anciens, int k) {
+        for (int x = 1; x < k; x++) {
+            int i = bloc[x];
+            int ancien = anciens[x];
+            int y = x - 1;
+            while (y >= 0 && evaluateur.getPoids(bloc[y]) < evaluateur.getPoids(i)) {
+                bloc[y + 1] = bloc[y];
+                anciens[y + 1] = anciens[y];
+                y--;
+            }
+            bloc[y + 1] = i;
+            anciens[y + 1] = ancien;
+        }
+    }
+}
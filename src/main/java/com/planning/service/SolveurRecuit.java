@@ -0,0 +1,33 @@
+package com.planning.service;
+
+import java.util.SplittableRandom;
+
+/**
+ * Recuit simulé: une chaîne, ou K chaînes en parallèle selon les options
+ */
+class SolveurRecuit implements Solveur {
+
+    @Override
+    public String getNom() { return "recuit"; }
+
+    @Override
+    public ResultatSolveur resoudre(ProblemePlanification probleme, OptionsOptimisation options, SplittableRandom random) {
+        // Une solution reprise d'une exécution précédente est déjà bonne: partir froid
+        double temperatureInitiale = options.getSuivi().isDemarrageAChaud()
+            ? OptimisationService.TEMPERATURE_REPRISE
+            : OptimisationService.TEMPERATURE_INITIALE;
+
+        ChaineRecuit meilleure;
+        if (options.getNbChaines() <= 1) {
+            options.getSuivi().prevoirPaliers(ChaineRecuit.nombrePaliers(temperatureInitiale,
+                OptimisationService.TEMPERATURE_MINIMALE, OptimisationService.TAUX_REFROIDISSEMENT));
+            meilleure = new ChaineRecuit(probleme, random, options.getSuivi());
+            meilleure.recuire(temperatureInitiale, OptimisationService.TEMPERATURE_MINIMALE,
+                OptimisationService.TAUX_REFROIDISSEMENT, OptimisationService.ITERATIONS_PAR_TEMPERATURE,
+                options.getRefroidissement());
+        } else {
+            meilleure = new RecuitParallele(probleme, options, random, temperatureInitiale).executer();
+        }
+        return new ResultatSolveur(meilleure.getMeilleursDebuts(), meilleure.getMeilleursFins(), meilleure.getMeilleurCout());
+    }
+}
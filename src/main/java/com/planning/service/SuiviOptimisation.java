@@ -0,0 +1,253 @@
+package com.planning.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Suivi d'une optimisation en cours: progression, meilleure solution courante et annulation.
+ * Mis à jour par le moteur à chaque palier de température, lu par d'autres threads.
+ */
+public class SuiviOptimisation {
+
+    /** Statistiques d'un palier de température */
+    public static final class Palier {
+        private final double temperature;
+        private final int iterations;
+        private final int acceptes;
+        private final double meilleurCout;
+        private final boolean rechauffe;
+        private final long millis;
+
+        Palier(double temperature, int iterations, int acceptes, double meilleurCout, boolean rechauffe, long millis) {
+            this.millis = millis;
+            this.temperature = temperature;
+            this.iterations = iterations;
+            this.acceptes = acceptes;
+            this.meilleurCout = meilleurCout;
+            this.rechauffe = rechauffe;
+        }
+
+        public double getTemperature() { return temperature; }
+        public int getIterations() { return iterations; }
+        public int getAcceptes() { return acceptes; }
+        public double getTauxAcceptation() { return iterations == 0 ? 0.0 : acceptes / (double) iterations; }
+        public double getMeilleurCout() { return meilleurCout; }
+        /** Vrai si le palier commence par un réchauffement */
+        public boolean isRechauffe() { return rechauffe; }
+        /** Fin du palier, en millisecondes depuis le début de l'exécution (courbe meilleur coût / temps) */
+        public long getMillis() { return millis; }
+    }
+
+    /** Termes de la fonction objectif */
+    public enum Terme { CONFLITS, GAPS, CONTRAINTES, PRIORITES, FATIGUE }
+
+    /** Types de mouvements du recuit (voir ChaineRecuit) */
+    public enum Mouvement {
+        /** Décaler une activité */
+        DECALAGE,
+        /** Échanger les créneaux de deux activités */
+        ECHANGE,
+        /** Allonger ou raccourcir une activité */
+        DUREE
+    }
+
+    /** Historique borné: au-delà, les paliers ne sont plus conservés (les totaux restent exacts) */
+    static final int MAX_PALIERS_HISTORIQUE = 2000;
+
+    private final long debutNanos = System.nanoTime();
+    /** Suivi de l'exécution complète pour un bloc de la décomposition, null sinon */
+    private final SuiviOptimisation parent;
+    private volatile boolean annule;
+    private volatile BudgetOptimisation budget = BudgetOptimisation.illimite();
+    private volatile boolean demarrageAChaud;
+    private volatile boolean resultatEnCache;
+    private volatile String moteur;
+    private volatile long graine;
+    private volatile ChronometreTermes chronometre;
+    private volatile double[] composantesCout;
+    private volatile long[] phasesNanos;
+
+    private long paliersPrevus;
+    private long paliersTermines;
+    private long iterations;
+    private double temperature;
+    private double meilleurCout = Double.NaN;
+    private long acceptes;
+    private final List<Palier> paliers = new ArrayList<>();
+    // Par type de mouvement: tirages, tirages écartés sans évaluation (créneau irréalisable), acceptations
+    private final long[] mouvementsTires = new long[Mouvement.values().length];
+    private final long[] mouvementsEcartes = new long[Mouvement.values().length];
+    private final long[] mouvementsAcceptes = new long[Mouvement.values().length];
+
+    public SuiviOptimisation() {
+        this.parent = null;
+    }
+
+    private SuiviOptimisation(SuiviOptimisation parent) {
+        this.parent = parent;
+        this.budget = parent.budget;
+        this.demarrageAChaud = parent.demarrageAChaud;
+    }
+
+    /**
+     * Suivi privé d'un bloc de la décomposition: annulation, budget et démarrage à chaud viennent
+     * de ce suivi, mais paliers et meilleur coût restent ceux du sous-problème
+     */
+    SuiviOptimisation pourBloc() {
+        return new SuiviOptimisation(this);
+    }
+
+    /** Demande l'arrêt: le moteur s'interrompt au prochain palier et retourne la meilleure solution trouvée */
+    public void annuler() { annule = true; }
+    public boolean estAnnule() { return annule || (parent != null && parent.estAnnule()); }
+
+    /** Budget de l'exécution en cours, fixé au démarrage par le service */
+    void demarrer(BudgetOptimisation budget) { this.budget = budget; }
+    public BudgetOptimisation getBudget() { return budget; }
+
+    void setDemarrageAChaud(boolean demarrageAChaud) { this.demarrageAChaud = demarrageAChaud; }
+    /** Vrai si l'exécution est repartie du dernier placement optimisé */
+    public boolean isDemarrageAChaud() { return demarrageAChaud; }
+
+    /** Résultat servi par le cache de résultats: moteur, graine et coûts sont ceux de l'exécution d'origine */
+    synchronized void resultatMemorise(String moteur, long graine, double meilleurCout, double[] composantes) {
+        this.resultatEnCache = true;
+        this.moteur = moteur;
+        this.graine = graine;
+        this.meilleurCout = meilleurCout;
+        this.composantesCout = composantes != null ? composantes.clone() : null;
+    }
+
+    public boolean isResultatEnCache() { return resultatEnCache; }
+
+    void setMoteur(String moteur) { this.moteur = moteur; }
+    /** Moteur retenu pour l'exécution (null tant qu'il n'est pas choisi) */
+    public String getMoteur() { return moteur; }
+
+    void setGraine(long graine) { this.graine = graine; }
+    /** Graine effective de l'exécution (imposée ou tirée), pour la rejouer */
+    public long getGraine() { return graine; }
+
+    /** Active la mesure du temps par terme du coût pour cette exécution */
+    ChronometreTermes chronometrer() {
+        chronometre = new ChronometreTermes();
+        return chronometre;
+    }
+    /** Vrai si le temps par terme a été mesuré (instrumentation demandée) */
+    public boolean isChronometre() { return chronometre != null; }
+    /** Temps cumulé de l'évaluation incrémentale pour le terme, en nanosecondes (0 sans instrumentation) */
+    public long getNanosTerme(Terme terme) {
+        ChronometreTermes c = chronometre;
+        return c == null ? 0L : c.getNanos(terme.ordinal());
+    }
+
+    void setComposantesCout(double[] composantes) { this.composantesCout = composantes.clone(); }
+    /** Terme pondéré du coût de la solution retournée (NaN tant qu'elle n'est pas connue) */
+    double[] getComposantesCout() {
+        double[] c = composantesCout;
+        return c == null ? null : c.clone();
+    }
+
+    public double getComposanteCout(Terme terme) {
+        double[] c = composantesCout;
+        return c == null ? Double.NaN : c[terme.ordinal()];
+    }
+
+    void setPhases(long chargementNanos, long preparationNanos, long rechercheNanos) {
+        this.phasesNanos = new long[]{chargementNanos, preparationNanos, rechercheNanos};
+    }
+    /** Chargement des données (DAO, disponibilités), en millisecondes (-1 tant que l'exécution n'est pas finie) */
+    public long getChargementMillis() { return phaseMillis(0); }
+    /** Solution initiale et encodage du problème, en millisecondes */
+    public long getPreparationMillis() { return phaseMillis(1); }
+    /** Recherche (moteur), en millisecondes */
+    public long getRechercheMillis() { return phaseMillis(2); }
+
+    private long phaseMillis(int phase) {
+        long[] p = phasesNanos;
+        return p == null ? -1 : p[phase] / 1_000_000L;
+    }
+
+    synchronized void prevoirPaliers(long nombre) {
+        paliersPrevus += nombre;
+    }
+
+    synchronized void palierTermine(double temperature, int iterations, int acceptes,
+                                    double meilleurCoutChaine, boolean rechauffe) {
+        this.paliersTermines++;
+        this.iterations += iterations;
+        this.acceptes += acceptes;
+        if (paliers.size() < MAX_PALIERS_HISTORIQUE) {
+            paliers.add(new Palier(temperature, iterations, acceptes, meilleurCoutChaine, rechauffe, getDureeMillis()));
+        }
+        this.temperature = temperature;
+        if (Double.isNaN(meilleurCout) || meilleurCoutChaine < meilleurCout) {
+            meilleurCout = meilleurCoutChaine;
+        }
+    }
+
+    /**
+     * Bloc de la décomposition terminé: compte pour un palier et cumule ses itérations et
+     * mouvements, sans reprendre son coût (partiel)
+     */
+    synchronized void blocTermine(SuiviOptimisation bloc) {
+        this.paliersTermines++;
+        this.iterations += bloc.getIterations();
+        this.acceptes += bloc.getAcceptes();
+        for (Mouvement m : Mouvement.values()) {
+            mouvementsTires[m.ordinal()] += bloc.getMouvementsTires(m);
+            mouvementsEcartes[m.ordinal()] += bloc.getMouvementsEcartes(m);
+            mouvementsAcceptes[m.ordinal()] += bloc.getMouvementsAcceptes(m);
+        }
+    }
+
+    /** Coût de la solution complète, une fois les blocs de la décomposition raccordés */
+    synchronized void solutionComplete(double cout) {
+        this.meilleurCout = cout;
+    }
+
+    /** Cumule les compteurs par type de mouvement d'un palier (tableaux indexés par Mouvement.ordinal()) */
+    synchronized void mouvementsTermines(long[] tires, long[] ecartes, long[] acceptes) {
+        for (int m = 0; m < mouvementsTires.length; m++) {
+            mouvementsTires[m] += tires[m];
+            mouvementsEcartes[m] += ecartes[m];
+            mouvementsAcceptes[m] += acceptes[m];
+        }
+    }
+
+    public synchronized long getMouvementsTires(Mouvement mouvement) { return mouvementsTires[mouvement.ordinal()]; }
+    public synchronized long getMouvementsEcartes(Mouvement mouvement) { return mouvementsEcartes[mouvement.ordinal()]; }
+    public synchronized long getMouvementsAcceptes(Mouvement mouvement) { return mouvementsAcceptes[mouvement.ordinal()]; }
+
+    /** Part des mouvements évalués (tirés et non écartés) qui ont été acceptés */
+    public synchronized double getTauxAcceptation(Mouvement mouvement) {
+        long evalues = mouvementsTires[mouvement.ordinal()] - mouvementsEcartes[mouvement.ordinal()];
+        return evalues == 0 ? 0.0 : mouvementsAcceptes[mouvement.ordinal()] / (double) evalues;
+    }
+
+    public synchronized long getIterations() { return iterations; }
+    public synchronized double getTemperature() { return temperature; }
+    public synchronized double getMeilleurCout() { return meilleurCout; }
+    public synchronized long getAcceptes() { return acceptes; }
+
+    /** Copie de l'historique des paliers (ordre de fin, toutes chaînes confondues) */
+    public synchronized List<Palier> getPaliers() { return new ArrayList<>(paliers); }
+
+    public long getDureeMillis() {
+        return (System.nanoTime() - debutNanos) / 1_000_000L;
+    }
+
+    /** Progression estimée entre 0 et 1 */
+    public synchronized double getProgression() {
+        double progression = paliersPrevus <= 0 ? 0.0 : Math.min(1.0, paliersTermines / (double) paliersPrevus);
+        return Math.max(progression, budget.getFractionUtilisee());
+    }
+
+    /** Temps restant estimé en millisecondes, -1 si inconnu */
+    public long getEtaMillis() {
+        double progression = getProgression();
+        if (progression <= 0.0) return -1;
+        long ecoule = getDureeMillis();
+        return (long) (ecoule * (1.0 - progression) / progression);
+    }
+}
@@ -0,0 +1,91 @@
+package com.planning.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache borné à éviction LRU, thread-safe (verrou interne), avec compteurs de succès/échecs.
+ * Borné en nombre d'entrées, et éventuellement en poids total (par exemple le nombre
+ * d'éléments des valeurs): les entrées les moins récentes sont évincées jusqu'à respecter les deux.
+ */
+public class CacheLRU<K, V> {
+    private final int capacite;
+    private final long poidsMax;
+    private final ToLongFunction<? super V> poids;
+    private final LinkedHashMap<K, V> entrees;
+    private long poidsTotal;
+    private long succes;
+    private long echecs;
+
+    public CacheLRU(int capacite) {
+        this(capacite, Long.MAX_VALUE, v -> 0L);
+    }
+
+    /**
+     * @param poidsMax poids total maximal des valeurs
+     * @param poids poids d'une valeur, constant tant qu'elle est dans le cache
+     */
+    public CacheLRU(int capacite, long poidsMax, ToLongFunction<? super V> poids) {
+        this.capacite = capacite;
+        this.poidsMax = poidsMax;
+        this.poids = poids;
+        this.entrees = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public synchronized V get(K cle) {
+        V valeur = entrees.get(cle);
+        if (valeur != null) succes++; else echecs++;
+        return valeur;
+    }
+
+    public synchronized void put(K cle, V valeur) {
+        V ancienne = entrees.put(cle, valeur);
+        if (ancienne != null) poidsTotal -= poids.applyAsLong(ancienne);
+        poidsTotal += poids.applyAsLong(valeur);
+        // Évincer les moins récentes (la nouvelle entrée est la plus récente)
+        Iterator<Map.Entry<K, V>> it = entrees.entrySet().iterator();
+        while ((entrees.size() > capacite || poidsTotal > poidsMax) && entrees.size() > 1) {
+            poidsTotal -= poids.applyAsLong(it.next().getValue());
+            it.remove();
+        }
+    }
+
+    public synchronized void invalider(K cle) {
+        V ancienne = entrees.remove(cle);
+        if (ancienne != null) poidsTotal -= poids.applyAsLong(ancienne);
+    }
+
+    /** Supprime les entrées satisfaisant le prédicat */
+    public synchronized void invaliderSi(BiPredicate<K, V> predicat) {
+        Iterator<Map.Entry<K, V>> it = entrees.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, V> e = it.next();
+            if (predicat.test(e.getKey(), e.getValue())) {
+                poidsTotal -= poids.applyAsLong(e.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /** Somme d'une mesure (par exemple une taille estimée) sur toutes les valeurs */
+    public synchronized long sommer(ToLongFunction<? super V> mesure) {
+        long total = 0;
+        for (V valeur : entrees.values()) total += mesure.applyAsLong(valeur);
+        return total;
+    }
+
+    public synchronized void vider() {
+        entrees.clear();
+        poidsTotal = 0;
+    }
+
+    public synchronized int taille() { return entrees.size(); }
+    public int getCapacite() { return capacite; }
+    /** Poids total des valeurs en cache */
+    public synchronized long getPoids() { return poidsTotal; }
+    public synchronized long getSucces() { return succes; }
+    public synchronized long getEchecs() { return echecs; }
+}
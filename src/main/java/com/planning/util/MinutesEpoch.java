@@ -0,0 +1,38 @@
+package com.planning.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Conversions entre LocalDateTime et minutes depuis l'epoch (heure locale, sans fuseau).
+ * Précision à la minute: les secondes éventuelles sont ignorées.
+ */
+public final class MinutesEpoch {
+
+    public static final int MINUTES_PAR_JOUR = 24 * 60;
+    public static final int MINUTES_PAR_SEMAINE = 7 * MINUTES_PAR_JOUR;
+
+    // Le 1970-01-01 était un jeudi: décalage pour que lundi 00:00 = minute 0 de la semaine
+    private static final int DECALAGE_LUNDI = 3 * MINUTES_PAR_JOUR;
+
+    private MinutesEpoch() {}
+
+    public static int de(LocalDateTime dt) {
+        return (int) Math.floorDiv(dt.toEpochSecond(ZoneOffset.UTC), 60L);
+    }
+
+    public static LocalDateTime versDateTime(int minutes) {
+        return LocalDateTime.ofEpochSecond(minutes * 60L, 0, ZoneOffset.UTC);
+    }
+
+    /** Minute de la semaine (0 = lundi 00:00, 10079 = dimanche 23:59) */
+    public static int minuteDeSemaine(int minutes) {
+        return Math.floorMod(minutes + DECALAGE_LUNDI, MINUTES_PAR_SEMAINE);
+    }
+
+    /** Début (minute de la semaine) du jour donné */
+    public static int debutJour(DayOfWeek jour) {
+        return (jour.getValue() - 1) * MINUTES_PAR_JOUR;
+    }
+}
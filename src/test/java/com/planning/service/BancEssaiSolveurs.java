@@ -0,0 +1,128 @@
+package com.planning.service;
+
+import com.planning.model.ContrainteHoraire;
+import com.planning.util.MinutesEpoch;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Banc d'essai hors base de données: courbes coût / temps des moteurs sur des semaines denses
+ * synthétiques (lundi-vendredi 08:00-19:00, activités remplissant ~90% du temps disponible,
+ * quelques activités fixes). Chaque moteur est relancé avec des budgets croissants et le
+ * meilleur coût obtenu est moyenné sur plusieurs instances.
+ *
+ * Outil de développement, hors du WAR (sources de test). Après mvn test-compile:
+ *   java -cp target/classes:target/test-classes com.planning.service.BancEssaiSolveurs [instances] [activites]
+ */
+class BancEssaiSolveurs {
+
+    private static final long[] BUDGETS_MS = {5, 10, 20, 50, 100, 200};
+    private static final String[] JOURS = {"LUNDI", "MARDI", "MERCREDI", "JEUDI", "VENDREDI", "SAMEDI", "DIMANCHE"};
+
+    public static void main(String[] args) {
+        int instances = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int nbActivites = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        Solveur[] solveurs = {new SolveurRecuit(), new SolveurLNS(), new SolveurGlouton()};
+
+        List<ProblemePlanification> problemes = new ArrayList<>();
+        for (int k = 0; k < instances; k++) problemes.add(semaineDense(new Random(k), nbActivites));
+
+        // Échauffement JIT
+        for (Solveur solveur : solveurs) executer(solveur, problemes.get(0), 50, 0);
+
+        System.out.printf(Locale.US, "%-10s", "budget ms");
+        for (Solveur solveur : solveurs) System.out.printf(Locale.US, "%12s", solveur.getNom());
+        System.out.println();
+        for (long budget : BUDGETS_MS) {
+            System.out.printf(Locale.US, "%-10d", budget);
+            for (Solveur solveur : solveurs) {
+                double total = 0;
+                for (int k = 0; k < instances; k++) total += executer(solveur, problemes.get(k), budget, k);
+                System.out.printf(Locale.US, "%12.1f", total / instances);
+            }
+            System.out.println();
+        }
+    }
+
+    private static double executer(Solveur solveur, ProblemePlanification probleme, long budgetMillis, long graine) {
+        OptionsOptimisation options = new OptionsOptimisation();
+        options.getSuivi().demarrer(new BudgetOptimisation(budgetMillis, 0));
+        return solveur.resoudre(probleme, options, new SplittableRandom(graine)).getCout();
+    }
+
+    /**
+     * Semaine dense: nuits et week-end indisponibles, placement initial glouton comme dans le service
+     */
+    static ProblemePlanification semaineDense(Random random, int nbActivites) {
+        List<ContrainteHoraire> horaires = new ArrayList<>();
+        for (int j = 0; j < 7; j++) {
+            if (j >= 5) {
+                horaires.add(indisponible(JOURS[j], LocalTime.MIDNIGHT, LocalTime.MAX));
+            } else {
+                horaires.add(indisponible(JOURS[j], LocalTime.of(19, 0), LocalTime.of(8, 0)));
+            }
+        }
+        DisponibiliteCompilee disponibilite = new DisponibiliteCompilee(0, horaires, Collections.emptyList());
+
+        LocalDateTime lundi = LocalDateTime.of(2025, 12, 1, 0, 0);
+        int fenetreDebut = MinutesEpoch.de(lundi);
+        int fenetreFin = MinutesEpoch.de(lundi.plusDays(7));
+
+        // Activités fixes: une réunion par jour ouvré
+        int[] fixesDebut = new int[5];
+        int[] fixesFin = new int[5];
+        CalendrierOccupe occupe = new CalendrierOccupe();
+        for (int j = 0; j < 5; j++) {
+            fixesDebut[j] = MinutesEpoch.de(lundi.plusDays(j).with(DayOfWeek.of(j + 1)).withHour(9 + random.nextInt(8)));
+            fixesFin[j] = fixesDebut[j] + 60;
+            occupe.occuper(fixesDebut[j], fixesFin[j]);
+        }
+
+        // ~90% des 50 h restantes, en durées de 30 à 150 min par pas de 15
+        int disponible = 5 * 11 * 60 - 5 * 60;
+        int[] durees = new int[nbActivites];
+        byte[] poids = new byte[nbActivites];
+        int total = 0;
+        for (int i = 0; i < nbActivites; i++) {
+            durees[i] = 30 + 15 * random.nextInt(9);
+            poids[i] = (byte) (1 + random.nextInt(4));
+            total += durees[i];
+        }
+        double echelle = 0.9 * disponible / total;
+        for (int i = 0; i < nbActivites; i++) {
+            durees[i] = Math.max(15, (int) Math.round(durees[i] * echelle / 15.0) * 15);
+        }
+
+        // Placement initial dans l'ordre de tirage (pas d'optimisation des priorités)
+        int[] debuts = new int[nbActivites];
+        int[] fins = new int[nbActivites];
+        int curseur = fenetreDebut;
+        for (int i = 0; i < nbActivites; i++) {
+            int debut = occupe.prochainCreneau(curseur, durees[i], fenetreFin, disponibilite);
+            if (debut == CalendrierOccupe.AUCUN) debut = fenetreFin - durees[i] - 1; // semaine pleine
+            debuts[i] = debut;
+            fins[i] = debut + durees[i];
+            occupe.occuper(debuts[i], fins[i]);
+            curseur = fins[i];
+        }
+        return new ProblemePlanification(debuts, fins, poids, fixesDebut, fixesFin,
+            fenetreDebut, fenetreFin, disponibilite);
+    }
+
+    private static ContrainteHoraire indisponible(String jour, LocalTime debut, LocalTime fin) {
+        ContrainteHoraire c = new ContrainteHoraire();
+        c.setJourSemaine(jour);
+        c.setHeureDebut(debut);
+        c.setHeureFin(fin);
+        c.setTypeContrainte("INDISPONIBLE");
+        return c;
+    }
+}